@@ -0,0 +1,110 @@
+import java.io.*;
+
+/**
+ * This class displays the grid in a terminal, redrawing only the cells that changed instead of the whole grid after each command.
+ *
+ * The grid is drawn once like Grid.toString() does, from the top left corner of the screen.
+ * Then each cell changed by a word placed or undone is rewritten alone, by moving the cursor on it with ANSI escape codes.
+ * The words list and the messages of the last command are printed again below the grid.
+ * Everything goes through a buffered stream flushed once per command, so a command only sends a few bytes per changed cell.
+ * The cells are found from the top of the screen, so the grid must fit in the terminal.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class AnsiRenderer implements Grid.CellListener {
+	private static final String CSI = "\033["; // Beginning of the ANSI escape codes
+	private Grid grid;
+	private WordsList list;
+	private PrintStream out;
+	private int[] dirty = new int[64]; // Cells changed since the last update, 2 ints per cell: line and column
+	private int dirtyCount;
+	private ByteArrayOutputStream messages = new ByteArrayOutputStream(); // Printed below the words list at the next update
+	private PrintStream status = new PrintStream(messages, true);
+
+	/**
+	 * Creates a new AnsiRenderer object following the changes of the given grid.
+	 * @param	grid	grid to display
+	 * @param	list	words list to display below the grid
+	 * @param	out	terminal to write to, wrapped in a buffer
+	 */
+	public AnsiRenderer(Grid grid, WordsList list, OutputStream out) {
+		this.grid = grid;
+		this.list = list;
+		this.out = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+		grid.addCellListener(this);
+	}
+
+	/**
+	 * Returns a stream for the messages to show below the words list, like the ones of Terminal and Game.
+	 * @return	stream printed at the next update
+	 */
+	public PrintStream getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Remembers a changed cell, to rewrite it at the next update.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	@Override
+	public void cellChanged(int l, int c) {
+		if(2*dirtyCount + 2 > dirty.length) dirty = java.util.Arrays.copyOf(dirty, 2*dirty.length);
+		dirty[2*dirtyCount] = l;
+		dirty[2*dirtyCount+1] = c;
+		dirtyCount++;
+	}
+
+	/**
+	 * Clears the screen and draws the whole grid, then the words list. Needed first, and after the grid is filled again.
+	 */
+	public void draw() {
+		out.print(CSI + "H" + CSI + "2J"); // Cursor to the top left corner, then clear the screen
+		out.print(grid);
+		dirtyCount = 0;
+		this.footer();
+	}
+
+	/**
+	 * Rewrites the cells changed since the last update, then the words list and the messages.
+	 */
+	public void update() {
+		char[][] cells = grid.getGrid();
+		for(int i = 0; i < dirtyCount; i++) {
+			int l = dirty[2*i], c = dirty[2*i+1];
+			this.moveTo(2 + 2*l, 3 + 4*c); // Each line of cells is under a border, and each cell is " x |"
+			out.print(cells[l][c]);
+		}
+		dirtyCount = 0;
+		this.footer();
+	}
+
+	/**
+	 * Clears what is below the grid and prints the words list and the messages there, then sends everything to the terminal.
+	 */
+	private void footer() {
+		this.moveTo(2*grid.getGrid().length + 2, 1);
+		out.print(CSI + "J"); // Clear to the end of the screen
+		out.println(list);
+		if(messages.size() > 0) {
+			out.write(messages.toByteArray(), 0, messages.size());
+			messages.reset();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Moves the cursor.
+	 * @param	row	line of the screen, from 1
+	 * @param	column	column of the screen, from 1
+	 */
+	private void moveTo(int row, int column) {
+		out.print(CSI);
+		out.print(row);
+		out.print(';');
+		out.print(column);
+		out.print('H');
+	}
+}
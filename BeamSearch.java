@@ -0,0 +1,329 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class finds a good score quickly for grids and lists of words too large for the exact search of Solver.
+ *
+ * Like Solver, words are taken from the longest to the shortest, and each level places or skips the next word,
+ * so that all the states of a level have the same words left and can be compared.
+ * Only a fixed number of states, the beam, is kept from one level to the next.
+ * Each state of the beam is expanded with the placements of the word earning the most points right away, found by Placements,
+ * and the children with the best score plus an estimate of what the remaining words can still earn are kept for the next level.
+ * Children reaching the same position through different placements of words of the same length, with the same Zobrist key of the occupied cells,
+ * are only kept once.
+ *
+ * A state is only the list of its moves: each thread replays it on its own copy of the grid, undoing back to the moves it shares
+ * with the state replayed before, which is most of them since states of the beam come from a few parents.
+ * The states of two levels are allocated once and reused, the next level being written over the one before the previous.
+ * The children of a level are written in arrays also allocated once, each state of the beam having its own slots,
+ * so that their order does not depend on which thread expanded which state.
+ * The states of a level are expanded in parallel, each thread taking the next one until all are done.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class BeamSearch {
+	private Grid grid; // Position to search from, never modified
+	private WordsList list;
+	private int width; // States kept at each level
+	private int threads;
+	private int[] order; // Length of each remaining word, longest first
+	private long[] lettersFrom; // Total length of the words from each index of order to the end
+
+	private State[] beam, next; // States of the current and next levels, reused
+	private int beamSize;
+	private int stride; // Slots of the children of each state: skipping the word and at most width placements
+	private int[] childCount; // Number of children of each state of the beam
+	private long[] childMove; // Move of each child, SKIP if the word is skipped
+	private int[] childScore; // Additional score after the move
+	private int[] childValue; // Score plus the estimate of what is left, the order of the children
+	private long[] childKey; // Position after the move
+	private long[] ranks; // Children of the level sorted, the complement of their value then their slot
+	private long[] seen; // Keys of the children kept at this level, by open addressing
+	private int[] seenLevel; // Level each slot of seen was filled at plus 1, so that the set never needs to be cleared
+	private long[] bestMoves = new long[0];
+	private int bestScore; // Additional score of bestMoves
+	private long states; // States expanded
+	private long nanos;
+	private static final long SKIP = -1; // Move of a skipped word
+
+	/**
+	 * A state of the search: the moves placed from the starting position.
+	 */
+	private static class State {
+		long[] moves = new long[16]; // Placement of each word of order, SKIP if it was skipped
+		int depth; // Number of words placed or skipped
+		int score; // Additional score of the moves
+	}
+
+	/**
+	 * Creates a new BeamSearch object for the given grid and remaining words. Neither of them is modified.
+	 * @param	grid	grid to play on
+	 * @param	list	words that can still be placed
+	 * @param	width	number of states kept at each level, the larger the slower and the better
+	 * @param	threads	number of threads expanding the states
+	 */
+	public BeamSearch(Grid grid, WordsList list, int width, int threads) {
+		if(width < 1 || threads < 1) throw new IllegalArgumentException("Invalid width or number of threads");
+		this.grid = grid;
+		this.list = list;
+		this.width = width;
+		this.threads = threads;
+		this.order = new int[list.size()];
+		int count = 0;
+		for(int length = list.maxLength(); length > 0; length--) {
+			for(int i = 0; i < list.countOfLength(length); i++) order[count++] = length;
+		}
+		this.lettersFrom = new long[count+1];
+		for(int i = count-1; i >= 0; i--) lettersFrom[i] = lettersFrom[i+1] + order[i];
+		this.beam = new State[width];
+		this.next = new State[width];
+		for(int i = 0; i < width; i++) {
+			beam[i] = new State();
+			next[i] = new State();
+		}
+		this.stride = width + 1;
+		this.childCount = new int[width];
+		this.childMove = new long[width*stride];
+		this.childScore = new int[width*stride];
+		this.childValue = new int[width*stride];
+		this.childKey = new long[width*stride];
+		this.ranks = new long[width*stride];
+		this.seen = new long[Integer.highestOneBit(width) << 2]; // At most width keys, so the set stays at most half full
+		this.seenLevel = new int[seen.length];
+	}
+
+	/**
+	 * Searches until every word was placed or skipped. Can only be called once.
+	 * @return	best total score found, including the score already made on the grid
+	 */
+	public int search() {
+		long start = System.nanoTime();
+		beamSize = 1; // The starting position, without any move
+		ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads - 1) : null; // The calling thread expands states too
+		ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+		try {
+			for(int depth = 0; depth < order.length && this.expand(pool, workers, depth); depth++) this.select(depth);
+		}
+		finally {
+			if(pool != null) pool.shutdown();
+		}
+		this.nanos = System.nanoTime() - start;
+		return grid.getTotalScore() + bestScore;
+	}
+
+	/**
+	 * Expands every state of the beam, on all threads.
+	 * @param	pool	threads helping the calling one, or null
+	 * @param	workers	grid of each thread
+	 * @param	depth	index in order of the word to place or skip
+	 * @return	true if every state was expanded, false if the thread was interrupted
+	 */
+	private boolean expand(ExecutorService pool, ThreadLocal<Worker> workers, int depth) {
+		AtomicInteger taken = new AtomicInteger();
+		Runnable task = () -> {
+			Worker worker = workers.get();
+			for(int i = taken.getAndIncrement(); i < beamSize; i = taken.getAndIncrement()) worker.expand(i, depth);
+		};
+		List<Future<?>> helpers = new ArrayList<>();
+		for(int t = 1; t < threads && pool != null; t++) helpers.add(pool.submit(task));
+		try {
+			task.run();
+			for(Future<?> helper: helpers) helper.get();
+		}
+		catch(InterruptedException e) { // Stop with the best moves found so far
+			for(Future<?> helper: helpers) helper.cancel(true);
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		catch(ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		states += beamSize;
+		return true;
+	}
+
+	/**
+	 * Keeps the best children with different keys as the next beam, and remembers the best moves found.
+	 * @param	depth	index in order of the word placed or skipped by the children
+	 */
+	private void select(int depth) {
+		// Best value first, then the lowest slot, so that the result does not depend on which thread expanded which state
+		int count = 0;
+		for(int i = 0; i < beamSize; i++) {
+			for(int slot = i*stride; slot < i*stride + childCount[i]; slot++) ranks[count++] = (long) ~childValue[slot] << 32 | slot;
+		}
+		Arrays.sort(ranks, 0, count);
+		int size = 0;
+		for(int i = 0; i < count && size < width; i++) {
+			int slot = (int) ranks[i];
+			if(!this.firstSeen(childKey[slot], depth+1)) continue; // Same position as a better child
+			State parent = beam[slot / stride];
+			State state = next[size++];
+			if(state.moves.length <= parent.depth) state.moves = new long[2*(parent.depth+1)];
+			System.arraycopy(parent.moves, 0, state.moves, 0, parent.depth);
+			state.moves[parent.depth] = childMove[slot];
+			state.depth = parent.depth + 1;
+			state.score = childScore[slot];
+			if(state.score > bestScore) {
+				bestScore = state.score;
+				bestMoves = Arrays.copyOf(state.moves, state.depth);
+			}
+		}
+		State[] tmp = beam; // The states of this level are written over at the next one
+		beam = next;
+		next = tmp;
+		beamSize = size;
+	}
+
+	/**
+	 * Adds a key to the keys of the children kept at a level.
+	 * @param	key	key of the position of a child
+	 * @param	level	number of the level, from 1
+	 * @return	true if the key was not there yet
+	 */
+	private boolean firstSeen(long key, int level) {
+		int mask = seen.length - 1;
+		for(int slot = (int) key & mask; ; slot = (slot+1) & mask) { // Zobrist keys are random, so their low bits are already spread
+			if(seenLevel[slot] != level) { // Free at this level
+				seen[slot] = key;
+				seenLevel[slot] = level;
+				return true;
+			}
+			if(seen[slot] == key) return false;
+		}
+	}
+
+	/**
+	 * Returns the moves reaching the best score, with the same syntax as the commands typed in the Terminal.
+	 * Words of the same length are given in the order of the list.
+	 * @return	the moves, in the order they must be played
+	 */
+	public List<Move> getBestMoves() {
+		int[] nextOfLength = new int[list.maxLength()+1]; // Index from which to look for the next word of each length
+		List<Move> moves = new ArrayList<>();
+		for(long move: bestMoves) {
+			if(move == SKIP) continue;
+			int length = Placements.length(move);
+			int index = list.nextIndex(nextOfLength[length]);
+			while(list.wordLength(index) != length) index = list.nextIndex(index+1);
+			nextOfLength[length] = index + 1;
+			moves.add(new Move(index, Placements.line(move), Placements.column(move), Placements.vertical(move)));
+		}
+		return moves;
+	}
+
+	/**
+	 * Returns the number of states expanded, one per state of each level.
+	 * @return	number of states expanded
+	 */
+	public long getStatesExpanded() {
+		return this.states;
+	}
+
+	/**
+	 * Returns the number of states expanded and the time taken.
+	 * @return	statistics about the search
+	 */
+	public String getStatistics() {
+		return states + " states expanded in " + String.format("%.3f", nanos / 1e9) + " s, beam width " + width;
+	}
+
+	/**
+	 * Grid of one thread, with the moves of the last state replayed on it.
+	 */
+	private class Worker {
+		private Grid copy = new Grid(grid);
+		private long[] replayed = new long[16];
+		private int depth;
+		private long[] best = new long[width]; // Placements of a state, reused
+		private CharSequence[] samples = new CharSequence[order.length > 0 ? order[0]+1 : 1]; // A word of each length, letters do not matter
+
+		Worker() {
+			for(int length = 0; length < samples.length; length++) samples[length] = "x".repeat(length);
+		}
+
+		/**
+		 * Writes the children of a state of the beam in its slots: skipping the word, and its best placements.
+		 * @param	index	index of the state in the beam
+		 * @param	word	index in order of the word to place or skip
+		 */
+		void expand(int index, int word) {
+			State state = beam[index];
+			this.replay(state);
+			int slot = index*stride;
+			this.child(slot++, SKIP, state.score, word);
+			if(word == 0 || order[word-1] != order[word] || state.moves[word-1] != SKIP) { // Words of the same length are interchangeable, skipping one skips the next ones
+				int count = Placements.best(copy, order[word], best);
+				for(int i = 0; i < count; i++) {
+					long move = best[i] & Placements.MOVE;
+					this.place(move);
+					this.child(slot++, move, state.score + (int) (best[i] >>> 40), word);
+					this.unplace();
+				}
+			}
+			childCount[index] = slot - index*stride;
+		}
+
+		/**
+		 * Writes a child in a slot, the grid being at its position.
+		 * @param	slot	slot of the child
+		 * @param	move	move leading to it
+		 * @param	score	additional score after the move
+		 * @param	word	index in order of the word placed or skipped
+		 */
+		void child(int slot, long move, int score, int word) {
+			childMove[slot] = move;
+			childScore[slot] = score;
+			childValue[slot] = score + this.estimate(word+1);
+			childKey[slot] = copy.getOccupancyKey();
+		}
+
+		/**
+		 * Brings the grid to the position of a state, keeping the moves it shares with the state replayed before.
+		 * @param	state	state to replay
+		 */
+		void replay(State state) {
+			int shared = 0;
+			while(shared < depth && shared < state.depth && replayed[shared] == state.moves[shared]) shared++;
+			while(depth > shared) this.unplace();
+			for(int i = shared; i < state.depth; i++) this.place(state.moves[i]);
+		}
+
+		void place(long move) {
+			if(move != SKIP) copy.place(samples[Placements.length(move)], Placements.line(move), Placements.column(move), Placements.vertical(move));
+			if(depth == replayed.length) replayed = Arrays.copyOf(replayed, 2*depth);
+			replayed[depth++] = move;
+		}
+
+		void unplace() {
+			if(replayed[--depth] != SKIP) copy.undo();
+		}
+
+		/**
+		 * Estimates what the remaining words can still earn: as many letters as there are empty cells and letters of words
+		 * short enough for the longest empty area, each worth the mean digit of the empty cells.
+		 * @param	from	index in order of the first remaining word
+		 * @return	estimated additional score
+		 */
+		int estimate(int from) {
+			int[] digits = copy.getFreeDigits();
+			long free = 0, sum = 0;
+			for(int d = 0; d < 10; d++) {
+				free += digits[d];
+				sum += (long) d * digits[d];
+			}
+			if(free == 0) return 0;
+			// Words are sorted by decreasing length, so the ones that still fit are the last ones
+			int room = copy.maxContiguous(), low = from, high = order.length;
+			while(low < high) {
+				int middle = (low + high) >>> 1;
+				if(order[middle] > room) low = middle + 1;
+				else high = middle;
+			}
+			return (int) (Math.min(lettersFrom[low], free) * sum / free);
+		}
+	}
+}
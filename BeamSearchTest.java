@@ -0,0 +1,76 @@
+import java.util.*;
+
+/**
+ * This class checks that BeamSearch only gives moves that can be played, and never announces more than the best score.
+ *
+ * On random grids small enough for Solver, the score of each beam is compared with the best one,
+ * then its moves are played again on a copy of the grid and must reach the score announced.
+ * Searching the same position twice, with one thread or several, must give the same score, since the states of a level are sorted the same way.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class BeamSearchTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private BeamSearchTest() {
+	}
+
+	/**
+	 * Plays the moves given by a search on a copy of the grid.
+	 * @param	grid	grid the search started from
+	 * @param	list	words the search was given
+	 * @param	moves	moves given by the search
+	 * @return	total score after the moves
+	 */
+	private static int play(Grid grid, WordsList list, List<Move> moves) {
+		Grid copy = new Grid(grid);
+		WordsList left = new WordsList(list);
+		for(Move move: moves) {
+			String word = left.getWord(move.getIndex());
+			Check.that(word != null, "move " + move + " places a word not in the list, or twice");
+			Check.that(copy.place(word, move.getLine(), move.getColumn(), move.isVertical()), "move " + move + " does not fit");
+			left.deleteWord(move.getIndex());
+		}
+		return copy.getTotalScore();
+	}
+
+	/**
+	 * Searches random positions with several widths and compares each search with the best score.
+	 */
+	private static void beams() {
+		for(int seed = 0; seed < 40; seed++) {
+			Random rand = new Random(seed);
+			int size = 3 + seed % 5;
+			Grid grid = Check.grid(size, rand);
+			WordsList list = Check.words(rand, 4 + rand.nextInt(5), size);
+			if(seed % 3 == 0 && grid.place(list.getWord(0), 0, 0, false)) list.deleteWord(0); // A game already started
+			int best = new Solver(grid, list).solve();
+			String position = "seed " + seed + ", words " + list + "\n" + grid;
+
+			for(int width: new int[] {1, 3, 16}) {
+				BeamSearch beam = new BeamSearch(grid, list, width, 1);
+				int found = beam.search();
+				Check.that(found >= grid.getTotalScore(), "beam of " + width + " lost points, " + position);
+				Check.that(found <= best, "beam of " + width + " found " + found + ", more than the best " + best + ", " + position);
+				Check.that(play(grid, list, beam.getBestMoves()) == found, "moves of the beam of " + width + " do not reach its score, " + position);
+
+				BeamSearch parallel = new BeamSearch(grid, list, width, 3);
+				int same = parallel.search();
+				Check.that(same == found, "beam of " + width + " found " + same + " on 3 threads and " + found + " on one, " + position);
+				Check.that(play(grid, list, parallel.getBestMoves()) == found, "moves of the beam of " + width + " on 3 threads do not reach its score, " + position);
+			}
+		}
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		beams();
+		Check.done("BeamSearchTest");
+	}
+}
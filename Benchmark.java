@@ -0,0 +1,310 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * This class measures the speed and the memory allocated by the main operations of the game.
+ *
+ * Each benchmark is run for every size in its list: first during a warmup time so that the JVM compiles the code, then during a measurement time.
+ * Operations are run by batches, so that reading the clock does not count for fast operations.
+ * The memory allocated by the current thread is read from the JVM before and after the measurement, and divided by the number of operations.
+ * Results are printed as a table, which can be saved and compared with BENCHMARKS.txt to spot regressions.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Benchmark {
+	private static final int[] BOARDS = {10, 64, 512, 4096}; // Sizes of the grids
+	private static final int[] LISTS = {30, 1000, 100000, 1000000}; // Numbers of words
+	private static final int[] THREADS = {1, 2, 4, 8}; // Numbers of threads writing at the same time
+	private static long warmup = 500_000_000L; // Nanoseconds spent before measuring
+	private static long measure = 2_000_000_000L; // Nanoseconds spent measuring
+	private static String filter = ""; // Only run benchmarks whose name contains this
+	private static PrintStream out = System.out;
+	private static long sink; // Results of the operations end up here, so that the JVM cannot skip them
+
+	/**
+	 * This class only has static methods.
+	 */
+	private Benchmark() {
+	}
+
+	/**
+	 * Creates a grid of the given size filled with random numbers.
+	 * @param	size	size of the grid
+	 * @return	new grid
+	 */
+	private static Grid grid(int size) {
+		Grid grid = new Grid();
+		grid.setSize(size);
+		grid.init();
+		return grid;
+	}
+
+	/**
+	 * Writes a file with the given number of random words, one per line, and loads it.
+	 * @param	count	number of words
+	 * @return	loaded list
+	 */
+	private static WordsList list(int count) {
+		WordsList list = new WordsList();
+		list.setFilename(words(count).getPath());
+		list.load();
+		return list;
+	}
+
+	/**
+	 * Writes a temporary file with the given number of random words of 2 to 10 letters, one per line.
+	 * @param	count	number of words
+	 * @return	the file, deleted when the JVM exits
+	 */
+	private static File words(int count) {
+		Random rand = new Random(count);
+		try {
+			File file = File.createTempFile("words", ".txt");
+			file.deleteOnExit();
+			try(PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+				char[] word = new char[10];
+				for(int i = 0; i < count; i++) {
+					int length = 2 + rand.nextInt(9);
+					for(int j = 0; j < length; j++) word[j] = (char) ('a' + rand.nextInt(26));
+					writer.println(new String(word, 0, length));
+				}
+			}
+			return file;
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Runs a benchmark for each of the given sizes and prints a line of results for each.
+	 * @param	name	name of the benchmark
+	 * @param	sizes	parameter given to the setup for each run
+	 * @param	setup	prepares the state for a size and returns the operation to measure
+	 */
+	private static void run(String name, int[] sizes, IntFunction<LongSupplier> setup) {
+		if(!name.contains(filter)) return;
+		for(int size: sizes) {
+			LongSupplier op = setup.apply(size);
+			long batch = 1;
+			long start = System.nanoTime();
+			while(System.nanoTime() - start < warmup) { // Also finds a batch size taking about 10 ms
+				long t = System.nanoTime();
+				for(long i = 0; i < batch; i++) sink += op.getAsLong();
+				if(System.nanoTime() - t < 10_000_000L) batch *= 2;
+			}
+
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			long ops = 0;
+			long bytes = threads.getCurrentThreadAllocatedBytes();
+			start = System.nanoTime();
+			long elapsed;
+			do {
+				for(long i = 0; i < batch; i++) sink += op.getAsLong();
+				ops += batch;
+				elapsed = System.nanoTime() - start;
+			} while(elapsed < measure);
+			bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+			out.printf(Locale.ROOT, "%-24s %8d %10d %16.1f %16.1f %14.1f%n", name, size, ops, (double) elapsed / ops, ops * 1e9 / elapsed, (double) bytes / ops);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Prints the score found by the beam search against the time taken, for each of the given widths, on the same grid and words.
+	 * Each search is run once to warm up the JVM, then measured once, since a single search is long enough to time.
+	 * @param	name	name of the benchmark
+	 * @param	widths	beam widths to try
+	 */
+	private static void curve(String name, int[] widths) {
+		if(!name.contains(filter)) return;
+		Grid grid = new Grid();
+		grid.setSize(20);
+		grid.init(new Random(20));
+		WordsList list = list(60);
+		int threads = Runtime.getRuntime().availableProcessors();
+		out.printf("%-24s %8s %10s %16s %16s%n", "# Search", "Width", "Score", "ms", "States");
+		for(int width: widths) {
+			new BeamSearch(grid, list, width, threads).search();
+			BeamSearch beam = new BeamSearch(grid, list, width, threads);
+			long start = System.nanoTime();
+			int score = beam.search();
+			long elapsed = System.nanoTime() - start;
+			out.printf(Locale.ROOT, "%-24s %8d %10d %16.1f %16d%n", name, width, score, elapsed / 1e6, beam.getStatesExpanded());
+			out.flush();
+		}
+	}
+
+	/**
+	 * Display help message on error output.
+	 */
+	private static void usage() {
+		String tmp = "Usage : java Benchmark [OPTION]... [FILTER]\n"
+		+ "\n"
+		+ "\tFILTER\tonly run benchmarks whose name contains this\n"
+		+ "\t-h\tdisplay this help and exit\n"
+		+ "\t-o\twrite results to the file given after this option\n"
+		+ "\t-q\tquick run, with shorter warmup and measurement times";
+		System.err.println(tmp);
+		System.exit(1);
+	}
+
+	/**
+	 * Method main which runs all the benchmarks.
+	 * @param	args	array of command-line arguments
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean getFileArg = false;
+		for(String arg: args) {
+			if(arg.equals("-h")) // Show help
+				usage();
+			else if(arg.equals("-q")) { // Shorter run
+				warmup /= 5;
+				measure /= 5;
+			}
+			else if(arg.equals("-o")) // Save results
+				getFileArg = true;
+			else if(getFileArg) {
+				out = new PrintStream(new FileOutputStream(arg), true);
+				getFileArg = false;
+			}
+			else filter = arg;
+		}
+
+		out.println("# " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + ", "
+			+ Runtime.getRuntime().availableProcessors() + " processors, " + Runtime.getRuntime().maxMemory() / (1 << 20) + " MB heap");
+		out.printf("%-24s %8s %10s %16s %16s %14s%n", "# Benchmark", "Size", "Ops", "ns/op", "ops/s", "B/op");
+
+		run("Grid.setWord", BOARDS, size -> { // Place a word at a random position and undo it, so that the grid stays the same
+			Grid grid = grid(size);
+			Random rand = new Random(size);
+			String word = "abcde".substring(0, Math.min(size, 5));
+			int[] pos = new int[3*1024];
+			for(int i = 0; i < 1024; i++) {
+				pos[3*i] = rand.nextInt(size - word.length() + 1);
+				pos[3*i+1] = rand.nextInt(size);
+				pos[3*i+2] = rand.nextInt(2);
+			}
+			int[] i = {0};
+			return () -> {
+				int j = 3*(i[0]++ & 1023);
+				boolean v = pos[j+2] == 1;
+				if(!grid.setWord(word, v ? pos[j] : pos[j+1], v ? pos[j+1] : pos[j], v)) return 0;
+				grid.undo();
+				return 1;
+			};
+		});
+
+		run("Grid.maxContiguous", BOARDS, size -> {
+			Grid grid = grid(size);
+			for(int i = 0; i < size; i += 2) grid.setWord("a", i, i, false); // Some occupied cells, so that there is something to track
+			return grid::maxContiguous;
+		});
+
+		run("Grid.initRandom", BOARDS, size -> {
+			Grid grid = grid(size);
+			return () -> {
+				grid.initRandom();
+				return grid.getStateKey();
+			};
+		});
+
+		run("Grid.toString", BOARDS, size -> {
+			Grid grid = grid(size);
+			return () -> grid.toString().length();
+		});
+
+		run("WordsList.load", LISTS, count -> {
+			WordsList list = list(count);
+			return () -> {
+				list.load();
+				return list.size();
+			};
+		});
+
+		run("WordsList.deleteWord", LISTS, count -> { // Delete a word by its text and put it back
+			WordsList list = list(count);
+			Random rand = new Random(count);
+			String[] words = new String[1024];
+			for(int i = 0; i < words.length; i++) words[i] = list.getWord(rand.nextInt(count));
+			int[] i = {0};
+			return () -> {
+				int index = list.deleteWord(words[i[0]++ & 1023]);
+				list.restoreWord(index);
+				return index;
+			};
+		});
+
+		run("Game.checkEnd", BOARDS, size -> {
+			Game game = new Game(grid(size), list(30));
+			return () -> game.checkEnd() ? 1 : 0;
+		});
+
+		run("Game.getUpperBound", BOARDS, size -> { // Place a word, undo it and read the bound, kept up to date by both moves
+			Game game = new Game(grid(size), list(30));
+			game.setOutput(null);
+			game.setEnd(() -> {});
+			game.getUpperBound(); // Counts the windows of the whole grid once
+			int length = game.list.wordLength(0);
+			Random rand = new Random(size);
+			int[] pos = new int[3*1024];
+			for(int i = 0; i < 1024; i++) {
+				pos[3*i] = rand.nextInt(size - length + 1);
+				pos[3*i+1] = rand.nextInt(size);
+				pos[3*i+2] = rand.nextInt(2);
+			}
+			int[] i = {0};
+			return () -> {
+				int j = 3*(i[0]++ & 1023);
+				boolean v = pos[j+2] == 1;
+				if(game.setWord(0, v ? pos[j] : pos[j+1], v ? pos[j+1] : pos[j], v)) game.undo();
+				return game.getUpperBound();
+			};
+		});
+
+		run("SharedGrid.place", THREADS, threads -> { // Each operation is a round: every thread tries 1000 words on the same 64x64 grid, emptied first
+			SharedGrid grid = new SharedGrid(grid(64), threads);
+			ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+				Thread thread = new Thread(task);
+				thread.setDaemon(true); // Never stopped, the JVM exits anyway
+				return thread;
+			});
+			List<Callable<Integer>> writers = new ArrayList<>();
+			for(int t = 0; t < threads; t++) {
+				int player = t;
+				writers.add(() -> {
+					ThreadLocalRandom rand = ThreadLocalRandom.current();
+					int placed = 0;
+					for(int i = 0; i < 1000; i++) {
+						boolean v = rand.nextBoolean();
+						int along = rand.nextInt(60), across = rand.nextInt(64);
+						if(grid.place(player, "abcde", v ? along : across, v ? across : along, v) >= 0) placed++;
+					}
+					return placed;
+				});
+			}
+			return () -> {
+				grid.reset();
+				long placed = 0;
+				try {
+					for(Future<Integer> writer: pool.invokeAll(writers)) placed += writer.get();
+				}
+				catch(InterruptedException | ExecutionException e) {
+					throw new RuntimeException(e);
+				}
+				return placed;
+			};
+		});
+
+		curve("BeamSearch", new int[] {1, 4, 16, 64, 256});
+
+		if(sink == 42) out.println(); // Uses the results, so that the JVM cannot skip them
+		out.close();
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * This class stores which cells of a grid are occupied, packed as bits in arrays of long.
+ *
+ * Each line is stored as an array of long, 64 cells per long, and a transposed copy stores each column the same way.
+ * This way checking whether a word fits only takes a few bitwise AND for a whole line or column segment.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Bitboard {
+	private long[][] lines; // Occupied cells of each line, bit j of lines[i] is cell (i, j)
+	private long[][] cols; // Transposed copy, bit i of cols[j] is cell (i, j)
+
+	/**
+	 * Creates a new Bitboard object for an empty square grid.
+	 * @param	size	size of the grid
+	 */
+	public Bitboard(int size) {
+		int words = (size + 63) >>> 6; // Number of long needed to hold one bit per cell of a line
+		this.lines = new long[size][words];
+		this.cols = new long[size][words];
+	}
+
+	/**
+	 * Marks a cell as occupied.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	public void set(int l, int c) {
+		lines[l][c >>> 6] |= 1L << c; // Shifts on long only use the 6 lowest bits, so this is the position inside the long
+		cols[c][l >>> 6] |= 1L << l;
+	}
+
+	/**
+	 * Marks a cell as empty.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	public void clear(int l, int c) {
+		lines[l][c >>> 6] &= ~(1L << c);
+		cols[c][l >>> 6] &= ~(1L << l);
+	}
+
+	/**
+	 * Checks whether a cell is occupied.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @return	true if the cell is occupied
+	 */
+	public boolean get(int l, int c) {
+		return (lines[l][c >>> 6] & (1L << c)) != 0;
+	}
+
+	/**
+	 * Checks that all cells needed by a word are empty.
+	 *
+	 * Coordinates must already be valid: the word has to be entirely inside the grid.
+	 * @param	length	length of the word
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, checks the cells vertically, otherwise checks them horizontally
+	 * @return	true if none of the cells is occupied
+	 */
+	public boolean isFree(int length, int l, int c, boolean v) {
+		if(length <= 0) return true;
+		long[] bits = v ? cols[c] : lines[l]; // The column or the line the word would be placed in
+		int from = v ? l : c;
+		int to = from + length - 1; // Last cell of the word
+		int last = to >>> 6;
+		long mask = -1L << from; // Cells from the first one to the end of the first long
+		for(int w = from >>> 6; w < last; w++) {
+			if((bits[w] & mask) != 0) return false;
+			mask = -1L; // Whole long for the ones in the middle
+		}
+		mask &= -1L >>> (63 - (to & 63)); // Stop at the last cell in the last long
+		return (bits[last] & mask) == 0;
+	}
+}
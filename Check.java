@@ -0,0 +1,92 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * This class holds what the tests of the game have in common: checking a condition, and building small grids and word lists.
+ *
+ * The tree has no build tool nor test framework, so each test is a class named after the class it checks, with a main,
+ * run like Benchmark: java GridTest. The first failed check stops it with an AssertionError, so the exit status is not 0.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Check {
+	private static int passed; // Checks passed so far
+
+	/**
+	 * This class only has static methods.
+	 */
+	private Check() {
+	}
+
+	/**
+	 * Fails if a condition is false.
+	 * @param	condition	what should be true
+	 * @param	message	what went wrong otherwise
+	 */
+	public static void that(boolean condition, String message) {
+		if(!condition) throw new AssertionError(message);
+		passed++;
+	}
+
+	/**
+	 * Prints how many checks passed, once a test is over.
+	 * @param	test	name of the test
+	 */
+	public static void done(String test) {
+		System.out.println(test + ": " + passed + " checks passed");
+	}
+
+	/**
+	 * Creates a grid of the given size filled with random numbers.
+	 * @param	size	size of the grid
+	 * @param	rand	random numbers generator
+	 * @return	new grid
+	 */
+	public static Grid grid(int size, Random rand) {
+		Grid grid = new Grid();
+		grid.setSize(size);
+		grid.init(rand);
+		return grid;
+	}
+
+	/**
+	 * Writes a temporary file and loads it in a new list.
+	 * @param	content	content of the file
+	 * @return	the list loaded
+	 */
+	public static WordsList words(String content) {
+		try {
+			File file = File.createTempFile("words", ".txt");
+			file.deleteOnExit();
+			try(OutputStream out = new FileOutputStream(file)) {
+				out.write(content.getBytes(StandardCharsets.UTF_8));
+			}
+			WordsList list = new WordsList();
+			list.setFilename(file.getPath());
+			list.load();
+			return list;
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Loads random words of lower case letters in a new list.
+	 * @param	rand	random numbers generator
+	 * @param	count	number of words
+	 * @param	longest	length of the longest words
+	 * @return	the list loaded
+	 */
+	public static WordsList words(Random rand, int count, int longest) {
+		StringBuilder content = new StringBuilder();
+		for(int i = 0; i < count; i++) {
+			for(int j = 1 + rand.nextInt(longest); j > 0; j--) content.append((char) ('a' + rand.nextInt(26)));
+			content.append('\n');
+		}
+		return words(content.toString());
+	}
+}
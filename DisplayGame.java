@@ -5,6 +5,8 @@ import javax.swing.*;
  * This class allows interaction with the GUI.
  * Links together Game, DisplayWordsList and DisplayGrid objects.
  * Extends MouseAdapter to provide mouse events handling for use with DisplayGrid.
+ * When a word is selected, the best placement for it is looked for in the background and highlighted on the grid,
+ * and the grid shows a heat map of the scores a word of that length can earn.
  *
  * @author Alexandre Renoux
  * @author Pierre-Emmanuel Novac
@@ -14,6 +16,8 @@ public class DisplayGame extends MouseAdapter {
 	private Game game;
 	private DisplayWordsList dlist;
 	private DisplayGrid dgrid;
+	private HintEngine hints;
+	private HeatMap heatMap;
 
 	/**
 	 * Creates a new DisplayGame object with given Game, DisplayWordsList and DisplayGrid.
@@ -25,19 +29,45 @@ public class DisplayGame extends MouseAdapter {
 		this.game = game;
 		this.dlist = dlist;
 		this.dgrid = dgrid;
+		this.hints = new HintEngine(game.grid);
+		this.heatMap = new HeatMap(game.grid);
+		dgrid.setReachable(game::getUpperBound);
+		dlist.addSelectionListener(e -> {
+			if(!e.getValueIsAdjusting()) this.hint();
+		});
+	}
+
+	/**
+	 * Highlights the best placement for the selected word once it is found and shows the heat map of its length,
+	 * or nothing if no word can be placed.
+	 */
+	private void hint() {
+		this.dgrid.clearHint();
+		if(!this.dlist.isSelectedButtonAvailable()) {
+			this.hints.cancel();
+			this.dgrid.setHeatMap(null);
+			return;
+		}
+		int length = this.dlist.getSelectedButtonText().length();
+		this.heatMap.setLength(length); // Only the lines and columns changed since the last time, if the length is the same
+		this.dgrid.setHeatMap(this.heatMap);
+		this.hints.request(length, hint -> {
+			if(hint != null) this.dgrid.setHint(hint[0], hint[1], length, hint[2] == 1);
+		});
 	}
 
 	/**
-	 * Calls Game::setWord and updates the GUI.
-	 * @param	word	word to place on the grid
+	 * Calls Game::setWord with the selected word and updates the GUI.
+	 * The word is given by its index, so that the selected one is placed even if an earlier word has the same text.
 	 * @param	l	line to begin at
 	 * @param	c	column to begin at
 	 * @param	v	if true, places the word vertically, otherwise places it horizontally
 	 */
-	private void setWord(String word, int l, int c, boolean v) {
-		this.game.setWord(word, l, c, v, () -> {
+	private void setWord(int l, int c, boolean v) {
+		int length = this.dlist.getSelectedButtonText().length();
+		this.game.setWord(this.dlist.getSelectedIndex(), l, c, v, () -> {
 			this.dlist.disableSelectedButton(); // Disable the button if the word was successfully placed.
-			this.dgrid.repaint(); // Don't forget to repaint the grid to actually display the changes.
+			this.dgrid.repaintCells(l, c, length, v); // Don't forget to repaint the cells of the word to actually display the changes.
 		});
 	}
 
@@ -52,6 +82,7 @@ public class DisplayGame extends MouseAdapter {
 		if(!this.dlist.isSelectedButtonAvailable()) return;
 
 		// Translates mouse coordinates into column and line numbers.
+		// They are relative to the grid itself, so the scrolling is already taken into account, and the cell width follows the zoom.
 		int c = (int) Math.floor(e.getX() / this.dgrid.getCellWidth());
 		int l = (int) Math.floor(e.getY() / this.dgrid.getCellWidth());
 
@@ -62,7 +93,22 @@ public class DisplayGame extends MouseAdapter {
 				v = true; // Set word orientation to vertical if placed with a right click.
 				// No break statement because we want setWord to be called in both cases.
 			case 1: // Left click
-				this.setWord(this.dlist.getSelectedButtonText(), l, c, v);
+				this.setWord(l, c, v);
+		}
+	}
+
+	/**
+	 * Handles mouse wheel events for DisplayGrid.
+	 *
+	 * Zooms around the mouse pointer when Control is held, otherwise lets the scroll pane containing the grid scroll it.
+	 */
+	@Override
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		if(e.isControlDown()) {
+			this.dgrid.zoom(-e.getWheelRotation(), e.getPoint()); // Wheel up zooms in
+			return;
 		}
+		JScrollPane scroll = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this.dgrid);
+		if(scroll != null) scroll.dispatchEvent(SwingUtilities.convertMouseEvent(this.dgrid, e, scroll));
 	}
 }
@@ -1,17 +1,46 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.HashMap;
+import java.util.function.IntSupplier;
 import javax.swing.*;
 
 /**
  * This provides a JPanel drawing a grid with characters.
- * Actually displays whats contained in the Grid object and the score.
+ * Actually displays whats contained in the Grid object and the score, with the most that can still be earned if it is given.
+ *
+ * Each different character is drawn once in a small image, a tile with the borders of its cell, kept in a cache.
+ * Painting the grid then only copies tiles, and only for the cells inside the area being repainted.
+ *
+ * The grid can be zoomed in and out, and is meant to be shown in a JScrollPane when it does not fit on the screen.
+ * When cells become too small for their characters to be read, each cell is only drawn as a colored square:
+ * from white to red for digits 0 to 9, blue for letters, which shows where the best scores are on large grids.
+ *
+ * A placement can be highlighted over the grid, like the best one found for the selected word.
+ * A HeatMap can be shown over the grid too, coloring each cell in orange the more a word beginning there would earn.
  *
  * @author Alexandre Renoux
  * @author Pierre-Emmanuel Novac
  */
 
-public class DisplayGrid extends JPanel {
+public class DisplayGrid extends JPanel implements Scrollable {
+	private static final int[] ZOOMS = {1, 2, 3, 4, 6, 9, 12, 18, 24, 30, 45, 60}; // Cell widths the grid can be zoomed to
+	private static final int DETAIL = 18; // Smallest cell width the characters are drawn at
+	private static final int LETTER = 0x4060FF; // Color of the letters on the heat map
+
 	private Grid grid;
-	private final int cellWidth = 30; // Fixed-width and height (square) grid cell
+	private int zoom = 9; // Index in ZOOMS of the current cell width
+	private int cellWidth = ZOOMS[zoom]; // Width and height (square) of a grid cell
+	private HashMap<Character, BufferedImage> tiles = new HashMap<>(); // Image of a cell for each character already drawn, at the current cell width
+	private BufferedImage heat; // Heat map of the cells being repainted, one pixel per cell
+	private int hintL, hintC, hintLength; // Highlighted placement, none if hintLength is 0
+	private boolean hintV;
+	private HeatMap heatMap; // Shown over the grid, or null
+	private IntSupplier reachable; // Most the remaining words can still earn, shown below the scores, or null
+	private static final Color[] OVERLAY = new Color[256]; // Color of the heat map over a cell, from a score of 0 to the highest possible
+	static {
+		for(int i = 0; i < OVERLAY.length; i++) OVERLAY[i] = new Color(255, 140, 0, i*3/4); // More opaque for higher scores, the digits stay readable
+	}
 
 	/**
 	 * Creates a new DisplayGrid object with given Grid object.
@@ -22,7 +51,7 @@ public class DisplayGrid extends JPanel {
 	}
 
 	/**
-	 * Returns the cell width. Would be more useful if it wasn't fixed.
+	 * Returns the cell width, which depends on the zoom.
 	 * @return	cell width
 	 */
 	public int getCellWidth() {
@@ -30,7 +59,131 @@ public class DisplayGrid extends JPanel {
 	}
 
 	/**
-	 * Actually draws the grid content on the screen.
+	 * Zooms in or out, keeping the given point at the same place on the screen when the grid is in a scroll pane.
+	 * @param	steps	number of zoom levels to go up, or down if negative
+	 * @param	anchor	point of the grid which must not move, or null to keep the top left corner of the view
+	 */
+	public void zoom(int steps, Point anchor) {
+		int zoom = Math.max(0, Math.min(ZOOMS.length-1, this.zoom + steps));
+		if(zoom == this.zoom) return;
+		int old = this.cellWidth;
+		this.zoom = zoom;
+		this.cellWidth = ZOOMS[zoom];
+		this.tiles.clear(); // Drawn at the old width
+
+		JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+		if(viewport == null) {
+			this.revalidate();
+			this.repaint();
+			return;
+		}
+		Point view = viewport.getViewPosition();
+		if(anchor == null) anchor = view;
+		// Same point of the grid, at the new scale, must stay at the same distance from the corner of the view
+		int x = (int) ((long) anchor.x * cellWidth / old) - (anchor.x - view.x);
+		int y = (int) ((long) anchor.y * cellWidth / old) - (anchor.y - view.y);
+		this.setSize(this.getPreferredSize());
+		Dimension extent = viewport.getExtentSize();
+		x = Math.max(0, Math.min(x, this.getWidth() - extent.width));
+		y = Math.max(0, Math.min(y, this.getHeight() - extent.height));
+		viewport.setViewPosition(new Point(x, y));
+		this.revalidate();
+		this.repaint();
+	}
+
+	/**
+	 * Returns the image of a cell containing the given character, drawing it the first time.
+	 * @param	c	content of the cell
+	 * @return	image of the cell, with its top and left borders
+	 */
+	private BufferedImage tile(char c) {
+		BufferedImage tile = tiles.get(c);
+		if(tile != null) return tile;
+		tile = new BufferedImage(cellWidth, cellWidth, BufferedImage.TYPE_INT_ARGB); // Transparent, so that the background of the panel shows
+		Graphics2D g = tile.createGraphics();
+		g.setFont(this.getFont().deriveFont(this.getFont().getSize2D()*cellWidth/30)); // Font of the panel for a cell width of 30
+		g.setColor(Color.black);
+		g.drawLine(0, 0, cellWidth-1, 0); // The bottom and right borders are the top and left ones of the next cells
+		g.drawLine(0, 0, 0, cellWidth-1);
+
+		// If cell does not contain a letter but a digit, color the digit in red.
+		if(Grid.digit(c) >= 0) g.setColor(Color.red);
+		// Otherwise if it contains a letter, color it in blue.
+		else g.setColor(Color.blue);
+		g.drawString(String.valueOf(c), cellWidth*12/30, cellWidth*24/30);
+		g.dispose();
+		tiles.put(c, tile);
+		return tile;
+	}
+
+	/**
+	 * Repaints only the cells of a word and the scores below the grid, for instance after the word was placed.
+	 * @param	l	line the word begins at
+	 * @param	c	column the word begins at
+	 * @param	length	length of the word
+	 * @param	v	true if the word is vertical
+	 */
+	public void repaintCells(int l, int c, int length, boolean v) {
+		this.repaint(c*cellWidth, l*cellWidth, (v ? 1 : length)*cellWidth + 1, (v ? length : 1)*cellWidth + 1);
+		this.repaint(0, grid.getGrid().length*cellWidth + 1, this.getWidth(), 60); // Scores
+	}
+
+	/**
+	 * Sets what gives the most the remaining words can still earn, shown below the total score.
+	 * @param	reachable	upper bound of the additional score, like Game.getUpperBound(), or null to show nothing
+	 */
+	public void setReachable(IntSupplier reachable) {
+		this.reachable = reachable;
+	}
+
+	/**
+	 * Highlights a placement over the grid, instead of the one highlighted before.
+	 * @param	l	line the placement begins at
+	 * @param	c	column the placement begins at
+	 * @param	length	length of the word
+	 * @param	v	true if the placement is vertical
+	 */
+	public void setHint(int l, int c, int length, boolean v) {
+		this.clearHint();
+		this.hintL = l;
+		this.hintC = c;
+		this.hintLength = length;
+		this.hintV = v;
+		this.repaint(c*cellWidth, l*cellWidth, (v ? 1 : length)*cellWidth + 1, (v ? length : 1)*cellWidth + 1);
+	}
+
+	/**
+	 * Shows a heat map over the grid, or stops showing it.
+	 * @param	heatMap	values to show, already computed, or null
+	 */
+	public void setHeatMap(HeatMap heatMap) {
+		if(heatMap == null && this.heatMap == null) return;
+		this.heatMap = heatMap;
+		this.repaint(); // Only the visible cells are drawn
+	}
+
+	/**
+	 * Returns how strong the heat map is on a cell.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @return	from 0 to 255, relative to the highest score a word of that length could earn, or -1 if no word fits there
+	 */
+	private int heat(int l, int c) {
+		int score = heatMap.get(l, c);
+		return score < 0 ? -1 : score*255 / (9*heatMap.getLength());
+	}
+
+	/**
+	 * Removes the highlighted placement, if any.
+	 */
+	public void clearHint() {
+		if(hintLength == 0) return;
+		this.repaint(hintC*cellWidth, hintL*cellWidth, (hintV ? 1 : hintLength)*cellWidth + 1, (hintV ? hintLength : 1)*cellWidth + 1);
+		this.hintLength = 0;
+	}
+
+	/**
+	 * Actually draws the grid content on the screen, only for the cells inside the clip of the given Graphics.
 	 */
 	@Override
 	public void paintComponent(Graphics g) {
@@ -38,31 +191,108 @@ public class DisplayGrid extends JPanel {
 		super.paintComponent(g);
 
 		char[][] gr = this.grid.getGrid();
+		int size = gr.length*this.cellWidth;
+		Rectangle clip = g.getClipBounds();
+		if(clip == null) clip = new Rectangle(0, 0, this.getWidth(), this.getHeight()); // Whole panel
 
-		for(int i=0; i< gr.length; i++) {
-			for(int j=0; j< gr[i].length; j++) {
-				char c = gr[i][j];
+		// Lines and columns of the cells partly inside the clip
+		int firstLine = Math.max(0, clip.y / cellWidth), lastLine = Math.min(gr.length-1, (clip.y + clip.height) / cellWidth);
+		int firstColumn = Math.max(0, clip.x / cellWidth), lastColumn = Math.min(gr.length-1, (clip.x + clip.width) / cellWidth);
+		if(cellWidth < DETAIL) this.paintHeatMap(g, gr, firstLine, lastLine, firstColumn, lastColumn);
+		else {
+			for(int i = firstLine; i <= lastLine; i++) {
+				for(int j = firstColumn; j <= lastColumn; j++) {
+					int heat = heatMap == null ? -1 : this.heat(i, j);
+					if(heat >= 0) { // Below the character, the tiles are transparent
+						g.setColor(OVERLAY[heat]);
+						g.fillRect(j*this.cellWidth, i*this.cellWidth, this.cellWidth, this.cellWidth);
+					}
+					g.drawImage(this.tile(gr[i][j]), j*this.cellWidth, i*this.cellWidth, null);
+				}
+			}
+		}
+		if(hintLength > 0) {
+			int width = (hintV ? 1 : hintLength)*cellWidth, height = (hintV ? hintLength : 1)*cellWidth;
+			g.setColor(new Color(0, 200, 0, 80)); // Transparent green, the digits below stay readable
+			g.fillRect(hintC*cellWidth, hintL*cellWidth, width, height);
+			g.setColor(new Color(0, 150, 0));
+			g.drawRect(hintC*cellWidth, hintL*cellWidth, width, height);
+		}
+		g.setColor(Color.black);
+		g.drawLine(size, 0, size, size); // Right and bottom borders of the grid
+		g.drawLine(0, size, size, size);
 
-				g.setColor(Color.black);
-				g.drawRect(j*this.cellWidth, i*this.cellWidth, this.cellWidth, this.cellWidth);
+		// Displays last placed word score, total score and the most still to earn.
+		if(clip.y + clip.height > size) {
+			g.drawString("Word's score: " + this.grid.getWordScore(), 10, size+24);
+			g.drawString("Total score:   " + this.grid.getTotalScore(), 10, size+36);
+			if(reachable != null) g.drawString("Still to earn: at most " + reachable.getAsInt(), 10, size+48);
+		}
+	}
 
-				// If cell does not contain a letter but a digit, color the digit in red.
-				if(Character.isDigit(c)) g.setColor(Color.red);
-				// Otherwise if it contains a letter, color it in blue.
-				else g.setColor(Color.blue);
-				g.drawString(String.valueOf(c), j*this.cellWidth+12, i*this.cellWidth+24);
+	/**
+	 * Draws the given cells as colored squares: one pixel per cell is written in an image, which is then scaled to the cell width.
+	 * @param	g	where to draw
+	 * @param	gr	content of the grid
+	 * @param	firstLine	first line to draw
+	 * @param	lastLine	last line to draw
+	 * @param	firstColumn	first column to draw
+	 * @param	lastColumn	last column to draw
+	 */
+	private void paintHeatMap(Graphics g, char[][] gr, int firstLine, int lastLine, int firstColumn, int lastColumn) {
+		int lines = lastLine - firstLine + 1, columns = lastColumn - firstColumn + 1;
+		if(lines <= 0 || columns <= 0) return;
+		if(heat == null || heat.getWidth() < columns || heat.getHeight() < lines) heat = new BufferedImage(columns, lines, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) heat.getRaster().getDataBuffer()).getData();
+		int width = heat.getWidth();
+		for(int i = 0; i < lines; i++) {
+			char[] line = gr[firstLine + i];
+			for(int j = 0; j < columns; j++) {
+				char c = line[firstColumn + j];
+				int digit = Grid.digit(c);
+				int fade = 255 - 25*digit; // Green and blue, less of them for higher digits
+				if(heatMap != null && digit >= 0) { // From white to orange instead, with the scores of the heat map
+					int heat = this.heat(firstLine + i, firstColumn + j);
+					pixels[i*width + j] = heat < 0 ? 0xFFFFFF : 0xFF0000 | (255 - heat*115/255) << 8 | (255 - heat);
+				}
+				else pixels[i*width + j] = digit >= 0 ? 0xFF0000 | fade << 8 | fade : LETTER;
 			}
 		}
+		int x = firstColumn*cellWidth, y = firstLine*cellWidth;
+		g.drawImage(heat, x, y, x + columns*cellWidth, y + lines*cellWidth, 0, 0, columns, lines, null);
+	}
 
-		// Displays last placed word score and total score.
-		g.setColor(Color.black);
-		g.drawString("Word's score: " + this.grid.getWordScore(), 10, cellWidth*gr.length+24);
-		g.drawString("Total score:   " + this.grid.getTotalScore(), 10, cellWidth*gr.length+36);
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		// Whole grid, unless it is larger than 3/4 of the screen
+		Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+		Dimension size = this.getPreferredSize();
+		return new Dimension(Math.min(size.width, screen.width*3/4), Math.min(size.height, screen.height*3/4));
+	}
+
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return this.cellWidth; // One cell
+	}
+
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width; // One screen
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return false;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return false;
 	}
 
 	@Override
 	public Dimension getPreferredSize() {
 		int gridLength = this.grid.getGrid()[0].length*this.cellWidth;
-		return new Dimension(gridLength+10, gridLength+48);
+		return new Dimension(gridLength+10, gridLength+60);
 	}
 }
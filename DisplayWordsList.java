@@ -1,77 +1,273 @@
-import java.awt.event.*;
 import java.awt.*;
+import java.util.Arrays;
 import javax.swing.*;
+import javax.swing.event.*;
 
 /**
- * This provides a JPanel contaning buttons for each word in the words list.
- * Implements ActionListener to handle clicks on buttons.
+ * This provides a JPanel showing the words list, which the player selects the word to place from.
+ *
+ * The words are shown in a JList which only draws the rows on the screen, so large lists do not create a component per word.
+ * A text field keeps the words containing the typed text, and a combo box sorts them by length or by the best score they can earn.
+ * The best scores are read from an UpperBound counting the windows of each length, which follows the changes of the grid by itself,
+ * so that sorting again after a word was placed does not scan the grid. Placed words stay in the list, grayed out.
+ * The words are only sorted again when the order changes, or when the grid changes while they are sorted by best score:
+ * each key typed in the filter only keeps the matching words of the sorted ones, and the selected word stays selected if it still matches.
+ * The names of the methods used by DisplayGame come from when each word was a button.
  *
  * @author Alexandre Renoux
  * @author Pierre-Emmanuel Novac
  */
 
-public class DisplayWordsList extends JPanel implements ActionListener {
-	private JButton selectedButton; // Last clicked button.
+public class DisplayWordsList extends JPanel {
+	private static final String[] ORDERS = {"List order", "Longest first", "Best score first"};
 	private WordsList list;
+	private Grid grid; // Used to sort by best score
+	private UpperBound scores; // Best score of each length of the loaded words, created when sorting by best score first, or null
+	private boolean resort; // A sort by best score is already planned, after a change of the grid
+	private int[] sorted = new int[0]; // Indexes of all the loaded words, in the order chosen, kept between keys typed
+	private int sortedBy = -1; // Index in ORDERS of the order of sorted, -1 if it must be sorted again
+	private char[] lowered; // Loaded words in lower case, one after the other, made by the first filter after loading, or null
+	private int[] loweredStart; // Index in lowered of each word, and of the end of the last one
+	private int[] view = new int[0]; // Indexes of the words shown in its first rows cells, in the order they are shown
+	private int rows; // Number of words shown
+	private Model model = new Model();
+	private JList<String> words = new JList<>(model);
+	private JTextField filter = new JTextField();
+	private JComboBox<String> order = new JComboBox<>(ORDERS);
+
+	/**
+	 * Shows the words of the list at the rows of the JList. Only the rows on the screen are read.
+	 */
+	private class Model extends AbstractListModel<String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int getSize() {
+			return rows;
+		}
+
+		@Override
+		public String getElementAt(int row) {
+			return list.getLoadedWord(view[row]);
+		}
+
+		/**
+		 * Tells the JList that the rows changed.
+		 * @param	before	number of rows before the change
+		 */
+		void changed(int before) {
+			int last = Math.max(before, rows) - 1;
+			if(last >= 0) fireContentsChanged(this, 0, last);
+		}
+	}
 
 	/**
 	 * Creates a new DisplayWordsList object with given WordsList object.
-	 *
-	 * Creates a JButton with text from each word in WordsList.
-	 * Events on JButtons are handled by this object itself.
 	 * @param	list	previously created WordsList object
+	 * @param	grid	grid the words are placed on
 	 */
-	public DisplayWordsList(WordsList list) {
+	public DisplayWordsList(WordsList list, Grid grid) {
 		this.list = list;
+		this.grid = grid;
+		this.setLayout(new BorderLayout());
+
+		words.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		words.setSelectionBackground(Color.pink); // Highlight selected word
+		words.setCellRenderer(new DefaultListCellRenderer() {
+			@Override
+			public Component getListCellRendererComponent(JList<?> jlist, Object value, int row, boolean selected, boolean focus) {
+				super.getListCellRendererComponent(jlist, value, row, selected, focus);
+				this.setEnabled(row >= rows || !list.isDeleted(view[row])); // Placed words are grayed out, the prototype row is measured with no row yet
+				return this;
+			}
+		});
+
+		// Keep the words containing the text typed, as soon as it changes
+		filter.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				refresh();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				refresh();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				refresh();
+			}
+		});
+		order.addActionListener(e -> refresh());
+		// Words sorted by best score move when the grid changes, sorted again once all the cells of the word are changed
+		grid.addCellListener((l, c) -> {
+			if(resort || order.getSelectedIndex() != 2) return;
+			resort = true;
+			SwingUtilities.invokeLater(() -> {
+				resort = false;
+				sortedBy = -1;
+				if(order.getSelectedIndex() == 2) refresh();
+			});
+		});
+
+		JPanel controls = new JPanel(new GridLayout(0, 1, 0, 4));
+		controls.add(filter);
+		controls.add(order);
+		this.add(controls, BorderLayout.NORTH);
+		this.add(new JScrollPane(words), BorderLayout.CENTER);
 		this.reload();
 	}
 
 	/**
-	 * Reload all buttons
+	 * Shows the words again, after the list was loaded again.
 	 */
 	public void reload() {
-		this.removeAll();
-		String[] ls = list.getWordsList();
-
-		for(int i=0 ; i< ls.length ; i++){
-			JButton button = new JButton(ls[i]);
-			button.addActionListener(this);
-			this.add(button);
+		// Rows are as wide as the longest word, measured once instead of for each row
+		int longest = -1;
+		for(int i = 0; i < list.loadedCount(); i++) {
+			if(longest < 0 || list.wordLength(i) > list.wordLength(longest)) longest = i;
 		}
+		words.setPrototypeCellValue(longest < 0 ? "          " : list.getLoadedWord(longest) + "  ");
+		if(scores != null) scores.close(); // Other words, and a new grid
+		scores = null;
+		lowered = null;
+		sortedBy = -1;
+		this.refresh();
 		this.setVisible(true);
 	}
 
 	/**
-	 * Disable the last clicked button.
+	 * Shows the words containing the text of the filter in the order of the combo box, sorting them only if the order is not the one of sorted.
+	 * The selected word stays selected if it is still shown.
+	 */
+	private void refresh() {
+		int selected = this.getSelectedIndex();
+		char[] text = filter.getText().toCharArray();
+		for(int i = 0; i < text.length; i++) text[i] = Character.toLowerCase(text[i]); // Char by char, like the words
+		if(text.length > 0 && lowered == null) this.lower();
+		if(sortedBy != order.getSelectedIndex()) this.sort();
+
+		int before = rows;
+		rows = 0;
+		int row = -1; // Row of the selected word
+		for(int index: sorted) {
+			if(text.length > 0 && !this.contains(index, text)) continue;
+			if(index == selected) row = rows;
+			view[rows++] = index;
+		}
+		model.changed(before);
+		if(row < 0) words.clearSelection();
+		else {
+			words.setSelectedIndex(row); // Nothing happens if the word did not move
+			words.ensureIndexIsVisible(row);
+		}
+	}
+
+	/**
+	 * Sorts all the loaded words in the order of the combo box.
+	 */
+	private void sort() {
+		int sort = order.getSelectedIndex();
+		if(sort == 2 && (scores == null || !scores.follows())) this.countScores();
+
+		// Sort key in the 32 high bits and index in the 32 low bits, so that sorting the longs sorts the words without boxing them
+		long[] keys = new long[list.loadedCount()];
+		for(int i = 0; i < keys.length; i++) {
+			long key = sort == 1 ? -list.wordLength(i) : sort == 2 ? -scores.best(list.wordLength(i)) : 0;
+			keys[i] = key << 32 | i;
+		}
+		if(sort != 0) Arrays.sort(keys); // Already in the order of the list otherwise
+
+		if(sorted.length != keys.length) {
+			sorted = new int[keys.length];
+			view = new int[keys.length];
+		}
+		for(int i = 0; i < keys.length; i++) sorted[i] = (int) keys[i];
+		sortedBy = sort;
+	}
+
+	/**
+	 * Counts the windows of the grid for the lengths of the loaded words, which then follow the changes of the grid.
+	 * Words longer than the grid are counted as fitting nowhere.
+	 */
+	private void countScores() {
+		if(scores != null) scores.close();
+		int longest = 0;
+		for(int i = 0; i < list.loadedCount(); i++) longest = Math.max(longest, list.wordLength(i));
+		boolean[] counted = new boolean[longest+1];
+		for(int i = 0; i < list.loadedCount(); i++) counted[list.wordLength(i)] = true;
+		scores = new UpperBound(grid, counted);
+	}
+
+	/**
+	 * Copies the loaded words in lower case, once, so that filtering them does not convert each word at each key typed.
+	 */
+	private void lower() {
+		loweredStart = new int[list.loadedCount()+1];
+		for(int i = 0; i < list.loadedCount(); i++) loweredStart[i+1] = loweredStart[i] + list.wordLength(i);
+		lowered = new char[loweredStart[list.loadedCount()]];
+		for(int i = 0; i < list.loadedCount(); i++) {
+			String word = list.getLoadedWord(i);
+			for(int j = 0; j < word.length(); j++) lowered[loweredStart[i] + j] = Character.toLowerCase(word.charAt(j));
+		}
+	}
+
+	/**
+	 * Checks whether a word contains a text, both in lower case.
+	 * @param	index	index of the word in the list
+	 * @param	text	text to look for, in lower case
+	 * @return	true if the word contains the text
+	 */
+	private boolean contains(int index, char[] text) {
+		int end = loweredStart[index+1] - text.length;
+		for(int start = loweredStart[index]; start <= end; start++) {
+			int j = 0;
+			while(j < text.length && lowered[start+j] == text[j]) j++;
+			if(j == text.length) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the index in the words list of the selected word.
+	 * @return	index of the word, or -1 if none is selected
+	 */
+	public int getSelectedIndex() {
+		int row = words.getSelectedIndex();
+		return row < 0 ? -1 : view[row];
+	}
+
+	/**
+	 * Adds an object told each time the selected word changes.
+	 * @param	listener	object following the selection
+	 */
+	public void addSelectionListener(ListSelectionListener listener) {
+		words.addListSelectionListener(listener);
+	}
+
+	/**
+	 * Unselect the word just placed, so that it cannot be placed again.
 	 */
 	public void disableSelectedButton() {
-		this.selectedButton.setEnabled(false);
+		words.clearSelection();
+		words.repaint(); // The placed word is now grayed out
 	}
 
 	/**
-	 * Returns the text contained in the last clicked button.
-	 * @return	text from last clicked button
+	 * Returns the selected word.
+	 * @return	selected word, or null if none is selected
 	 */
 	public String getSelectedButtonText() {
-		return this.selectedButton.getText();
+		int index = this.getSelectedIndex();
+		return index < 0 ? null : list.getLoadedWord(index);
 	}
 
 	/**
-	 * Check if a button was previously clicked and if it is not already disabled.
+	 * Check if a word is selected and if it was not already placed.
 	 * @return	true if the conditions are met, false otherwise
 	 */
 	public boolean isSelectedButtonAvailable() {
-		return (this.selectedButton != null) && this.selectedButton.isEnabled();
-	}
-	/**
-	 * Handles mouse click events for each JButton. Remembers last clicked button.
-	 */
-	@Override
-	public void actionPerformed(ActionEvent e) {
-		// Reset previous selected button color if selection is modified
-		if(isSelectedButtonAvailable()) this.selectedButton.setBackground(null);
-		this.selectedButton = (JButton) e.getSource();
-		// Highlight selected button
-		this.selectedButton.setBackground(Color.pink);
+		return !list.isDeleted(this.getSelectedIndex()); // Index -1 when nothing is selected counts as deleted
 	}
 }
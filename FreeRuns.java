@@ -0,0 +1,103 @@
+import java.util.BitSet;
+
+/**
+ * This class keeps track of the empty areas of a grid so that the longest one can be found without scanning every cell.
+ *
+ * Every line and every column of the grid is split into runs of empty cells by the occupied ones.
+ * We remember which cells are occupied, one BitSet per line and per column, and how many runs of each length exist across the whole grid.
+ * Occupying a cell only splits the run containing it, in its line and in its column, so only those two runs are updated.
+ * Releasing a cell merges the runs around it back the same way.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class FreeRuns {
+	private BitSet[] lines; // Occupied cells of each line
+	private BitSet[] cols; // Occupied cells of each column
+	private int[] runCount; // Number of empty runs for each length, lines and columns together
+	private int size;
+	private int max; // Length of the longest empty run
+
+	/**
+	 * Creates a new FreeRuns object for an empty square grid.
+	 * @param	size	size of the grid
+	 */
+	public FreeRuns(int size) {
+		this.size = size;
+		this.lines = new BitSet[size];
+		this.cols = new BitSet[size];
+		for(int i = 0; i < size; i++) {
+			lines[i] = new BitSet(size);
+			cols[i] = new BitSet(size);
+		}
+		this.runCount = new int[size+1];
+		this.runCount[size] = 2*size; // Each line and each column is a single empty run
+		this.max = size;
+	}
+
+	/**
+	 * Marks a cell as occupied, splitting the empty runs it belonged to.
+	 * Does nothing if the cell is already occupied.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	public void occupy(int l, int c) {
+		if(lines[l].get(c)) return;
+		split(lines[l], c);
+		split(cols[c], l);
+		while(max > 0 && runCount[max] == 0) max--; // Runs only got shorter, so look for the new longest one downwards
+	}
+
+	/**
+	 * Marks a cell as empty again, merging the empty runs on each side of it.
+	 * Does nothing if the cell is already empty.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	public void release(int l, int c) {
+		if(!lines[l].get(c)) return;
+		max = Math.max(max, merge(lines[l], c));
+		max = Math.max(max, merge(cols[c], l)); // Runs only got longer, so the new longest one is one of those two
+	}
+
+	/**
+	 * Adds the given position back to the empty runs on each side of it and updates the counters.
+	 * @param	bits	occupied cells of the line or column
+	 * @param	i	position in the line or column
+	 * @return	length of the merged run
+	 */
+	private int merge(BitSet bits, int i) {
+		bits.clear(i);
+		int prev = bits.previousSetBit(i); // Occupied cell before, or -1 if none
+		int next = bits.nextSetBit(i); // Occupied cell after, or -1 if none
+		if(next < 0) next = size;
+		runCount[i-prev-1]--; // The two runs on each side of i disappear
+		runCount[next-i-1]--;
+		runCount[next-prev-1]++; // And are replaced by a single one
+		return next-prev-1;
+	}
+
+	/**
+	 * Removes the given position from the empty run containing it and updates the counters.
+	 * @param	bits	occupied cells of the line or column
+	 * @param	i	position in the line or column
+	 */
+	private void split(BitSet bits, int i) {
+		int prev = bits.previousSetBit(i); // Occupied cell before, or -1 if none
+		int next = bits.nextSetBit(i); // Occupied cell after, or -1 if none
+		if(next < 0) next = size;
+		runCount[next-prev-1]--; // The run containing i disappears
+		runCount[i-prev-1]++; // And is replaced by the two parts on each side of i
+		runCount[next-i-1]++;
+		bits.set(i);
+	}
+
+	/**
+	 * Returns the length of the longest empty run, in lines and columns.
+	 * @return	max contiguous area in the grid
+	 */
+	public int max() {
+		return this.max;
+	}
+}
@@ -1,3 +1,6 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
 /**
  * This class allows interaction between the grid and the words list.
  * Links together Grid and WordsList objects.
@@ -11,6 +14,14 @@ public class Game {
 	Grid grid;
 	WordsList list;
 	private Runnable end; // Run this function at the end of the game
+	private PrintStream out = System.out; // Where the end of the game is announced, null to say nothing
+
+	// History of placed words, used for undo and redo. The placements themselves are undone by the undo stack of Grid.
+	private int[] history = new int[4*16]; // 4 ints per word: index in words list, line, column, 1 if vertical
+	private CharSequence[] historyWords = new CharSequence[16]; // Word placed at each step
+	private int historyCount; // Number of words currently placed
+	private int historyTop; // Number of words that can be placed again with redo, from historyCount to historyTop
+	private UpperBound bound; // Created by the first call to getUpperBound(), then following the changes of the grid, or null
 
 	/**
 	 * Creates a new Game object with given Grid and WordsList.
@@ -32,11 +43,11 @@ public class Game {
 			int maxContiguous = grid.maxContiguous();
 			int minWordSize = list.minLength();
 			if(maxContiguous < minWordSize) { // No room left
-				System.out.println("LOST");
+				if(out != null) out.println("LOST");
 				return true;
 			}
 			else if(minWordSize == 0) { // No words left
-				System.out.println("WIN");
+				if(out != null) out.println("WIN");
 				return true;
 			}
 			return false;
@@ -54,7 +65,8 @@ public class Game {
 	public boolean setWord(String word, int l, int c, boolean v, Runnable callback) {
 		if(grid.setWord(word,l,c,v)) // Word successfully placed
 		{
-			list.deleteWord(word); // So delete if from the list
+			int index = list.deleteWord(word); // So delete if from the list
+			record(index, word, l, c, v);
 			callback.run(); // Run the callback to notify caller of update
 			if(checkEnd()) end.run(); // And if we reached the end of the game run the appropriate method
 			return true;
@@ -71,17 +83,127 @@ public class Game {
 	 * @return      true if the game has ended, false otherwise
 	 */
 	public boolean setWord(int index, int l, int c, boolean v) {
-		String[] wordsList = list.getWordsList();
-		if(index < 0 || index >= wordsList.length || wordsList[index] == null) return false; // If wrong index
-		if(grid.setWord(wordsList[index],l,c,v)) // Word successfully placed
+		return setWord(index, l, c, v, () -> {});
+	}
+
+	/**
+	 * Same as setWord(int, int, int, boolean), running callback once the word is placed, like setWord(String, int, int, boolean, Runnable).
+	 * Unlike that one, the word placed is the one at the given index even if an earlier word has the same text.
+	 * @param	index	index of word to place in words list
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, places the word vertically, otherwise places it horizontally
+	 * @param	callback Runnable functional interface called after the word has been placed and before the end of the game if applicable
+	 * @return	true if the word was placed, false otherwise
+	 */
+	public boolean setWord(int index, int l, int c, boolean v, Runnable callback) {
+		CharSequence word = list.wordAt(index); // Read from the words list without copying it in a String
+		if(word == null) return false; // If wrong index
+		if(grid.setWord(word,l,c,v)) // Word successfully placed
 		{
 			list.deleteWord(index); // So delete if from the list
+			record(index, word, l, c, v);
+			callback.run(); // Run the callback to notify caller of update
 			if(checkEnd()) end.run(); // And if we reached the end of the game run the appropriate method
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Adds a placed word to the history. Words that were undone cannot be redone anymore.
+	 * @param	index	index of the word in words list
+	 * @param	word	placed word
+	 * @param	l	line the word begins at
+	 * @param	c	column the word begins at
+	 * @param	v	true if the word was placed vertically
+	 */
+	private void record(int index, CharSequence word, int l, int c, boolean v) {
+		if(historyCount == historyWords.length) { // Grow geometrically, so rarely
+			history = Arrays.copyOf(history, 2*history.length);
+			historyWords = Arrays.copyOf(historyWords, 2*historyWords.length);
+		}
+		history[4*historyCount] = index;
+		history[4*historyCount+1] = l;
+		history[4*historyCount+2] = c;
+		history[4*historyCount+3] = v ? 1 : 0;
+		historyWords[historyCount++] = word;
+		historyTop = historyCount;
+	}
+
+	/**
+	 * Removes the last placed word from the grid and puts it back in the words list.
+	 * @return	true if a word was removed, false if there was nothing to undo
+	 */
+	public boolean undo() {
+		if(historyCount == 0 || !grid.undo()) return false;
+		historyCount--;
+		list.restoreWord(history[4*historyCount]);
+		return true;
+	}
+
+	/**
+	 * Places again the last word removed by undo() and ends the game if applicable.
+	 * @return	true if a word was placed, false if there was nothing to redo
+	 */
+	public boolean redo() {
+		if(historyCount == historyTop) return false;
+		int i = historyCount;
+		if(!grid.setWord(historyWords[i], history[4*i+1], history[4*i+2], history[4*i+3] == 1)) return false;
+		list.deleteWord(history[4*i]);
+		historyCount++;
+		if(checkEnd()) end.run();
+		return true;
+	}
+
+	/**
+	 * Forgets the placed words, so that they cannot be undone or redone. Called when a new game starts with the same grid and list.
+	 */
+	public void reset() {
+		Arrays.fill(historyWords, 0, historyTop, null);
+		historyCount = 0;
+		historyTop = 0;
+		if(bound != null) bound.close(); // The grid was filled again
+		bound = null;
+	}
+
+	/**
+	 * Returns an upper bound of the score the remaining words can still earn: the game cannot end with more than the total score plus this.
+	 *
+	 * The bound is computed from the whole grid the first time, for the lengths of the remaining words only,
+	 * then kept up to date by the cells changed, so that asking for it after each move costs much less than a pass over the grid.
+	 * @return	upper bound of the additional score
+	 */
+	public int getUpperBound() {
+		int longest = Math.min(list.maxLength(), grid.getGrid().length); // Longer words never fit
+		boolean missing = bound == null || !bound.follows();
+		for(int length = 1; length <= longest && !missing; length++) missing = list.countOfLength(length) > 0 && !bound.counts(length);
+		if(missing) { // First call, or a word of another length came back
+			if(bound != null) bound.close();
+			boolean[] counted = new boolean[longest+1];
+			for(int length = 1; length <= longest; length++) counted[length] = list.countOfLength(length) > 0;
+			bound = new UpperBound(grid, counted);
+		}
+		return bound.get(list);
+	}
+
+	/**
+	 * Returns a 64-bit key of the state of the game, made from the keys of the grid and of the remaining words.
+	 * The same position reached through different moves has the same key.
+	 * @return	key of the current state
+	 */
+	public long getStateKey() {
+		return grid.getStateKey() ^ Long.rotateLeft(list.getStateKey(), 32); // Rotated, so that equal keys of the grid and the list do not cancel each other
+	}
+
+	/**
+	 * Set where checkEnd() announces the end of the game, standard output by default.
+	 * @param	out	stream to print to, or null to print nothing
+	 */
+	public void setOutput(PrintStream out) {
+		this.out = out;
+	}
+
 	/**
 	 * Set the method to run at the end of the game to the provided one.
 	 * @param	end	Runnable functional interface to call at the end of the game
@@ -13,6 +13,32 @@ public class Grid {
 	private int size;
 	private int wordScore; // Score for the word that has just been placed
 	private int totalScore;
+	private FreeRuns freeRuns; // Empty areas of the grid, kept up to date by setWord()
+	private Bitboard occupied; // Occupied cells packed as bits, used to check quickly if a word fits
+	private ScoreIndex scores; // Value of empty cells summed by line and column, used to compute scores without reading each cell
+	private int[] freeDigits; // Number of empty cells containing each digit
+	private long stateKey; // Zobrist hash of the content of every cell
+	private long occupancyKey; // Zobrist hash of the occupied cells only, whatever their letters
+
+	private CellListener[] listeners = new CellListener[0]; // Told about each cell changed by placing or undoing a word, replaced when one is added or removed
+
+	// Undo stack, stored in primitive arrays allocated once so that placing and undoing words does not create any object
+	private int[] moves; // 4 ints per placed word: line, column, length*2 + 1 if vertical, score
+	private int moveCount; // Number of words on the stack
+	private char[] overwritten; // Content of the cells replaced by each word, in placement order
+	private int overwrittenCount;
+
+	/**
+	 * This interface is implemented by the objects that follow the changes of the cells, like a display drawing only what changed.
+	 */
+	public interface CellListener {
+		/**
+		 * Called after the content of a cell changed because a word was placed or undone.
+		 * @param	l	line of the cell
+		 * @param	c	column of the cell
+		 */
+		void cellChanged(int l, int c);
+	}
 
 	/**
 	 * Creates a new Grid object.
@@ -20,6 +46,21 @@ public class Grid {
 	public Grid() {
 	}
 
+	/**
+	 * Creates a new Grid object with the same content and score as another one.
+	 *
+	 * The undo stack is not copied: the words already placed on the other grid cannot be undone on the copy.
+	 * @param	other	grid to copy
+	 */
+	public Grid(Grid other) {
+		this.size = other.grid.length;
+		this.grid = new char[size][];
+		for(int i = 0; i < size; i++) grid[i] = other.grid[i].clone();
+		this.index();
+		this.wordScore = other.wordScore;
+		this.totalScore = other.totalScore;
+	}
+
 	/** Set size of the grid
 	 * @param	size	size of the grid
 	 */
@@ -34,8 +75,16 @@ public class Grid {
 	 * Uses previously set size for both dimensions.
 	 */
 	public void init() {
+		this.init(new Random());
+	}
+
+	/**
+	 * Creates a new 2D array as member, filled with random numbers from the given generator.
+	 * @param	rand	random numbers generator, so that the same seed gives the same grid
+	 */
+	public void init(Random rand) {
 		grid = new char[size][size];
-		this.initRandom();
+		this.initRandom(rand);
 		wordScore = 0;
 		totalScore = 0;
 	}
@@ -49,28 +98,138 @@ public class Grid {
 	 */
 	@Override
 	public String toString() {
-		String str = "";
-		String delim = "";
+		return Grid.toString(this.grid);
+	}
+
+	/**
+	 * Returns a string representation of the content of a grid, the same as toString() of a Grid holding it.
+	 * @param	grid	characters of the cells, line by line
+	 * @return a string representation of the grid
+	 */
+	public static String toString(char[][] grid) {
+		if(grid.length == 0) return "\n"; // No line, so no border either
+		StringBuilder delim = new StringBuilder(1 + 4*grid.length); // Bottom border, the same under each line
+		delim.append("—");
+		for(int i = 0; i < grid.length; i++) delim.append("——––"); // Extend bottom border for one char
+		StringBuilder str = new StringBuilder((2*grid.length + 1) * (delim.length() + 1)); // Every line has about as many characters as the border
+		str.append(delim).append('\n'); // Add first top border for the table
 		for(char l[]: grid) { // Iterate over lines
-			str += "|"; // First border on the left
-			delim = "—"; // First border on the bottom
-			for(char c: l) { // Iterate over columns
-				str += " " + c + " |"; // Add a border on the right of the cell
-				delim += "——––"; // Extend bottom border for one char
+			str.append('|'); // First border on the left
+			for(char c: l) str.append(' ').append(c).append(" |"); // Add a border on the right of the cell
+			str.append('\n').append(delim).append('\n'); // Add the bottom border to the string
+		}
+		return str.toString();
+	}
+
+	/**
+	 * Checks whether a word of the given length can be placed in the grid, without placing it.
+	 *
+	 * First checks if given parameters are valid, then checks if all the cells needed are empty.
+	 * The second check is done on the occupancy bitboard, a few bitwise operations instead of reading each cell.
+	 *
+	 * @param	length	length of the word to place
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, checks vertically, otherwise checks horizontally
+	 * @return	true if the word fits, false otherwise
+	 */
+	public boolean fits(int length, int l, int c, boolean v) {
+		if(l<0 || c<0) return false; // Negative values for coordinates are invalid
+
+		if((length > grid.length - (v ? l : c)) || // Word doesn't fit
+			((v ? c : l) >= grid.length)) return false; // Or the other coordinate is out of bounds
+
+		return occupied.isFree(length, l, c, v); // None of the cells must be occupied
+	}
+
+	/**
+	 * Returns the score a word of the given length would earn, without placing it.
+	 *
+	 * The grid is not modified, so this can be called for every candidate placement.
+	 * The score is read from the score index in logarithmic time instead of summing each cell.
+	 *
+	 * @param	length	length of the word to place
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, places the word vertically, otherwise places it horizontally
+	 * @return	score of the placement, or -1 if the word does not fit
+	 */
+	public int scoreOf(int length, int l, int c, boolean v) {
+		if(!fits(length, l, c, v)) return -1;
+		return scores.sum(length, l, c, v);
+	}
+
+	/**
+	 * Returns the value of a cell: the digit of an empty cell, or -1 for a cell occupied by a letter.
+	 * Every class reading the cells decodes them with this, so that they all agree on which cells are empty and what they are worth.
+	 * @param	ch	content of the cell
+	 * @return	digit from 0 to 9, or -1 if the cell is occupied
+	 */
+	public static int digit(char ch) {
+		if(ch >= '0' && ch <= '9') return ch - '0'; // The digits the grid is filled with, checked first since they are the most read
+		return Character.isDigit(ch) ? Character.getNumericValue(ch) : -1;
+	}
+
+	/**
+	 * Finds where a word of the given length would earn the most points, in any grid content, for instance a copy of the grid.
+	 *
+	 * Each line and column is read once, keeping the sum of the digits of the last cells in the current empty area,
+	 * so this takes the same time whatever the length.
+	 * @param	cells	content of a grid
+	 * @param	length	length of the word
+	 * @param	placement	receives the line, the column and 1 if vertical of the best placement, or null
+	 * @return	score of the best placement, or -1 if the word fits nowhere
+	 */
+	public static int bestPlacement(char[][] cells, int length, int[] placement) {
+		int best = -1;
+		if(length <= 0) return best;
+		for(int v = 0; v < 2; v++) {
+			for(int i = 0; i < cells.length; i++) { // Line, or column when vertical
+				int sum = 0, run = 0; // Sum of the last cells of the empty area, up to length of them, and number of cells in the area
+				for(int j = 0; j < cells.length; j++) {
+					int digit = digit(v == 1 ? cells[j][i] : cells[i][j]);
+					if(digit < 0) {
+						sum = 0;
+						run = 0;
+						continue;
+					}
+					sum += digit;
+					if(++run > length) sum -= digit(v == 1 ? cells[j-length][i] : cells[i][j-length]); // Left the window
+					if(run >= length && sum > best) {
+						best = sum;
+						if(placement != null) {
+							placement[0] = v == 1 ? j-length+1 : i;
+							placement[1] = v == 1 ? i : j-length+1;
+							placement[2] = v;
+						}
+					}
+				}
 			}
-			str += "\n" + delim + "\n"; // Add the bottom border to the string
 		}
-		str = delim + "\n" + str; // Add first top border for the table
-		return str;
+		return best;
 	}
 
 	/**
 	 * Places a word in the grid while updating the score and returns true if successful.
 	 *
-	 * First checks if given parameters are valid, then checks if all the cells needed are empty.
-	 * If one of those conditions is not met, returns immediately false.
+	 * Same as place(), kept as the entry point used by Game.
+	 *
+	 * @param	word	word to place on the grid
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, places the word vertically, otherwise places it horizontally
+	 * @return	true if the word is successfully placed, false otherwise
+	 */
+	public boolean setWord(CharSequence word, int l, int c, boolean v) {
+		return place(word, l, c, v);
+	}
+
+	/**
+	 * Places a word in the grid while updating the score and returns true if successful. The move can be reverted with undo().
+	 *
+	 * First checks with scoreOf() if the word can be placed and how much it earns, if not returns immediately false.
 	 * Else, each of the characters (all being numbers) is replaced one by one using those from the given word.
-	 * At the same time, the score for the word is calculated, then the total score is updated.
+	 * The replaced characters and the move are pushed on the undo stack, then the total score is updated.
 	 * Inside this method, we uses the ternary operator ?: in order to shorten the code.
 	 *
 	 * @param	word	word to place on the grid
@@ -79,63 +238,214 @@ public class Grid {
 	 * @param	v	if true, places the word vertically, otherwise places it horizontally
 	 * @return	true if the word is successfully placed, false otherwise
 	 */
-	public boolean setWord(String word, int l, int c, boolean v) {
-		if(l<0 || c<0) return false; // Negative values for coordinates are invalid
+	public boolean place(CharSequence word, int l, int c, boolean v) {
+		int score = scoreOf(word.length(), l, c, v);
+		if(score < 0) return false; // The word doesn't fit
 
-		if((word.length() > grid.length - (v ? l : c)) || // Word doesn't fit
-			((v ? c : l) >= grid.length)) return false; // Or the other coordinate is out of bounds
+		if(overwrittenCount + word.length() > overwritten.length) // Only happens when digits are placed over digits, otherwise each cell is overwritten once
+			overwritten = Arrays.copyOf(overwritten, Math.max(2*overwritten.length, overwrittenCount + word.length()));
+		if(4*moveCount + 4 > moves.length) moves = Arrays.copyOf(moves, 2*moves.length); // Grow geometrically, so rarely
 
-		this.wordScore = 0;
-		for(int i = 0; i < word.length(); i++) { // This first loop checks if the word fits and computes the score
-			int nbt = Character.getNumericValue(grid[v ? l+i :l][v ? c : c+i]); // Used to convert a char into an int
-			if(nbt<0 || nbt>9) return false; // It was not a digit so it means the cell is not empty
-			this.wordScore += nbt; // Update the score for current word with the number present on the cell
-		}
-		for(int i = 0; i < word.length(); i++) { // Then actually place the word, characters one by one
-			grid[v ? l+i :l][v ? c : c+i] = word.charAt(i); // Gets the char at the specified position in the string and replace the cell content with it
+		this.wordScore = score;
+		for(int i = 0; i < word.length(); i++) { // Actually place the word, characters one by one
+			overwritten[overwrittenCount++] = grid[v ? l+i : l][v ? c : c+i]; // Remember what was there
+			write(v ? l+i : l, v ? c : c+i, word.charAt(i)); // Gets the char at the specified position in the word and replace the cell content with it
 		}
+		moves[4*moveCount] = l;
+		moves[4*moveCount+1] = c;
+		moves[4*moveCount+2] = 2*word.length() + (v ? 1 : 0);
+		moves[4*moveCount+3] = score;
+		moveCount++;
 		this.totalScore += this.wordScore; // Update the total score
 		return true; // Success!
 	}
 
+	/**
+	 * Removes the last placed word from the grid, restoring the digits it replaced and the score.
+	 * @return	true if a word was removed, false if there was nothing to undo
+	 */
+	public boolean undo() {
+		if(moveCount == 0) return false;
+		moveCount--;
+		int l = moves[4*moveCount];
+		int c = moves[4*moveCount+1];
+		int length = moves[4*moveCount+2] >> 1;
+		boolean v = (moves[4*moveCount+2] & 1) != 0;
+		for(int i = length-1; i >= 0; i--) { // Restore the cells in reverse order
+			restore(v ? l+i : l, v ? c : c+i, overwritten[--overwrittenCount]);
+		}
+		this.totalScore -= moves[4*moveCount+3];
+		this.wordScore = moveCount > 0 ? moves[4*moveCount-1] : 0; // The previous word is now the last placed one
+		return true;
+	}
+
+	/**
+	 * Returns the number of words that can be removed with undo().
+	 * @return	number of placed words
+	 */
+	public int getMoveCount() {
+		return this.moveCount;
+	}
+
+	/**
+	 * Replaces the content of an empty cell and updates every index kept alongside the grid.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @param	ch	new content of the cell
+	 */
+	private void write(int l, int c, char ch) {
+		int before = digit(grid[l][c]); // The cell was empty, so it contained a digit
+		stateKey ^= Zobrist.key(l*grid.length + c, grid[l][c]) ^ Zobrist.key(l*grid.length + c, ch); // Replace the key of the old content by the new one
+		grid[l][c] = ch;
+		for(CellListener listener: listeners) listener.cellChanged(l, c);
+		freeDigits[before]--;
+		int after = digit(ch);
+		if(after >= 0) { // Still empty, only its value may change
+			scores.add(l, c, after - before);
+			freeDigits[after]++;
+			return;
+		}
+		scores.add(l, c, -before); // An occupied cell is worth nothing anymore
+		freeRuns.occupy(l, c);
+		occupied.set(l, c);
+		occupancyKey ^= Zobrist.key(-1 - l*grid.length - c); // Negative numbers, so that these keys differ from the ones of stateKey
+	}
+
+	/**
+	 * Puts back the digit a cell contained before write() and updates every index kept alongside the grid.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @param	digit	previous content of the cell
+	 */
+	private void restore(int l, int c, char digit) {
+		int value = digit(digit);
+		int current = digit(grid[l][c]);
+		stateKey ^= Zobrist.key(l*grid.length + c, grid[l][c]) ^ Zobrist.key(l*grid.length + c, digit);
+		freeDigits[value]++;
+		if(current >= 0) { // Was still empty, only its value changes back
+			scores.add(l, c, value - current);
+			freeDigits[current]--;
+		}
+		else { // Becomes empty again
+			scores.add(l, c, value);
+			freeRuns.release(l, c);
+			occupied.clear(l, c);
+			occupancyKey ^= Zobrist.key(-1 - l*grid.length - c);
+		}
+		grid[l][c] = digit;
+		for(CellListener listener: listeners) listener.cellChanged(l, c);
+	}
+
 	/**
 	 * Initializes the grid content by random numbers.
 	 */
 	public void initRandom() {
-		Random rand = new Random();
+		this.initRandom(new Random());
+	}
+
+	/**
+	 * Initializes the grid content by random numbers from the given generator.
+	 * @param	rand	random numbers generator
+	 */
+	public void initRandom(Random rand) {
 		for(int i = 0; i < grid.length; i++) {
 			for(int j = 0; j < grid[i].length; j++) {
 				grid[i][j] = Character.forDigit(rand.nextInt(10), 10); // Used to convert the random integer to a char
 			}
 		}
+		this.index(); // All cells are empty again
 	}
 
 	/**
-	 * Calculates the longest empty area in the grid.
-	 * @return	max contiguous area in the grid
+	 * Builds every index kept alongside the grid from its current content, and empties the undo stack.
 	 */
-	public int maxContiguous() {
-		int maxContigCol = 0;
-		int maxContigLine = 0;
-
-		// Creates a new array used to store temporarly the longest empty area for each columns
-		int[] curContigCols = new int[grid[0].length];
-
-		for (int i = 0; i < grid.length; i++) { // Iterate over lines
-			int curContigLine = 0;
-			for(int j = 0; j < grid[i].length; j++) { // Iterate over columns
-				if(Character.isDigit(grid[i][j])) { // Current cell is empty (contains a number)
-					curContigLine++; // So we increment the longest empty area found for the current line
-					curContigCols[j]++; // Same for the column
-				} else {
-					curContigCols[j] = 0; // Reset the counter since the empty area is finished
-					curContigLine = 0;
+	private void index() {
+		freeRuns = new FreeRuns(grid.length);
+		occupied = new Bitboard(grid.length);
+		scores = new ScoreIndex(grid);
+		freeDigits = new int[10];
+		stateKey = 0;
+		occupancyKey = 0;
+		for(int i = 0; i < grid.length; i++) {
+			for(int j = 0; j < grid[i].length; j++) {
+				stateKey ^= Zobrist.key(i*grid.length + j, grid[i][j]);
+				int value = digit(grid[i][j]);
+				if(value >= 0) freeDigits[value]++;
+				else {
+					freeRuns.occupy(i, j);
+					occupied.set(i, j);
+					occupancyKey ^= Zobrist.key(-1 - i*grid.length - j);
 				}
-				maxContigLine = Math.max(maxContigLine, curContigLine); // Updates the maximum empty area for lines if the current one is greater
-				maxContigCol = Math.max(maxContigCol, curContigCols[j]); // Same for column
 			}
 		}
-		return Math.max(maxContigLine, maxContigCol); // And returns the max between empty area for lines and columns
+		moves = new int[4*Math.max(grid.length, 1)]; // Room for size words before growing
+		moveCount = 0;
+		overwritten = new char[grid.length*grid.length]; // Each cell can only be overwritten once by a letter
+		overwrittenCount = 0;
+	}
+
+	/**
+	 * Adds an object told about each cell changed by placing or undoing a word, after the ones already added.
+	 * Filling the grid with init() changes every cell without telling them.
+	 * @param	listener	object following the changes
+	 */
+	public void addCellListener(CellListener listener) {
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+	}
+
+	/**
+	 * Removes an object added by addCellListener(), so that it is not told about the changes anymore.
+	 * @param	listener	object following the changes
+	 * @return	true if it was removed, false if it was not added
+	 */
+	public boolean removeCellListener(CellListener listener) {
+		for(int i = 0; i < listeners.length; i++) {
+			if(listeners[i] != listener) continue;
+			CellListener[] kept = new CellListener[listeners.length - 1];
+			System.arraycopy(listeners, 0, kept, 0, i);
+			System.arraycopy(listeners, i+1, kept, i, kept.length - i);
+			listeners = kept;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the longest empty area in the grid.
+	 *
+	 * The empty areas are tracked by a FreeRuns object updated each time a word is placed, so the grid is not scanned again.
+	 * @return	max contiguous area in the grid
+	 */
+	public int maxContiguous() {
+		return freeRuns.max();
+	}
+
+	/**
+	 * Returns the number of empty cells containing each digit, indexed by the digit.
+	 * The array is kept up to date by the grid and must not be modified.
+	 * @return	count of empty cells for each digit from 0 to 9
+	 */
+	public int[] getFreeDigits() {
+		return this.freeDigits;
+	}
+
+	/**
+	 * Returns a 64-bit hash of the content of the grid, updated each time a word is placed or undone.
+	 * Two grids with the same content have the same key, whatever the order the words were placed in.
+	 * @return	Zobrist hash of the grid
+	 */
+	public long getStateKey() {
+		return this.stateKey;
+	}
+
+	/**
+	 * Returns a 64-bit hash of which cells are occupied, ignoring the letters they contain.
+	 * Placing two different words of the same length at the same position gives the same key.
+	 * @return	Zobrist hash of the occupied cells
+	 */
+	public long getOccupancyKey() {
+		return this.occupancyKey;
 	}
 
 	/**
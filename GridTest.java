@@ -0,0 +1,216 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class checks that placing and undoing words keeps every index of Grid consistent with the content of its cells.
+ *
+ * Random words are placed and undone on random grids, and after each move the grid is compared with the content itself:
+ * scores and free areas are computed again cell by cell, and the hashes against a grid indexed again from the same content.
+ * Undoing every word must give back the grid as it was created.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class GridTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private GridTest() {
+	}
+
+	/**
+	 * Returns a copy of the content of a grid.
+	 * @param	cells	content of a grid
+	 * @return	copy of each line
+	 */
+	private static char[][] copy(char[][] cells) {
+		char[][] copy = new char[cells.length][];
+		for(int i = 0; i < cells.length; i++) copy[i] = cells[i].clone();
+		return copy;
+	}
+
+	/**
+	 * Computes the score of a placement by reading each of its cells.
+	 * @param	cells	content of a grid
+	 * @param	length	length of the word
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	true if vertical
+	 * @return	sum of the digits covered, or -1 if the word does not fit
+	 */
+	private static int score(char[][] cells, int length, int l, int c, boolean v) {
+		if(l < 0 || c < 0 || (v ? l : c) + length > cells.length || (v ? c : l) >= cells.length) return -1;
+		int sum = 0;
+		for(int i = 0; i < length; i++) {
+			char ch = cells[v ? l+i : l][v ? c : c+i];
+			if(!Character.isDigit(ch)) return -1;
+			sum += Character.getNumericValue(ch);
+		}
+		return sum;
+	}
+
+	/**
+	 * Computes the longest empty area of a line or a column by reading each cell.
+	 * @param	cells	content of a grid
+	 * @return	number of cells of the longest run of digits
+	 */
+	private static int longestRun(char[][] cells) {
+		int longest = 0;
+		for(int v = 0; v < 2; v++) {
+			for(int i = 0; i < cells.length; i++) {
+				int run = 0;
+				for(int j = 0; j < cells.length; j++) {
+					run = Character.isDigit(v == 1 ? cells[j][i] : cells[i][j]) ? run+1 : 0;
+					longest = Math.max(longest, run);
+				}
+			}
+		}
+		return longest;
+	}
+
+	/**
+	 * Compares every index of a grid with its content.
+	 * @param	grid	grid to check
+	 * @param	total	score the grid should have
+	 */
+	private static void checkIndexes(Grid grid, int total) {
+		char[][] cells = grid.getGrid();
+		int size = cells.length;
+		Check.that(grid.getTotalScore() == total, "total score " + grid.getTotalScore() + " instead of " + total);
+		Check.that(grid.maxContiguous() == longestRun(cells), "longest empty area " + grid.maxContiguous() + " instead of " + longestRun(cells));
+
+		int[] free = new int[10];
+		for(char[] line: cells) {
+			for(char ch: line) if(Character.isDigit(ch)) free[Character.getNumericValue(ch)]++;
+		}
+		Check.that(Arrays.equals(grid.getFreeDigits(), free), "free digits " + Arrays.toString(grid.getFreeDigits()) + " instead of " + Arrays.toString(free));
+
+		Grid indexed = new Grid(grid); // Indexed again from the content
+		Check.that(grid.getStateKey() == indexed.getStateKey(), "state key differs from the content");
+		Check.that(grid.getOccupancyKey() == indexed.getOccupancyKey(), "occupancy key differs from the content");
+
+		for(int length = 1; length <= size+1; length++) {
+			int best = -1;
+			for(int l = -1; l <= size; l++) {
+				for(int c = -1; c <= size; c++) {
+					for(boolean v: new boolean[] {false, true}) {
+						int expected = score(cells, length, l, c, v);
+						best = Math.max(best, expected);
+						Check.that(grid.scoreOf(length, l, c, v) == expected, "score of " + length + (v ? "v" : "h") + "(" + l + "," + c + ")");
+						Check.that(grid.fits(length, l, c, v) == (expected >= 0), "fits " + length + (v ? "v" : "h") + "(" + l + "," + c + ")");
+					}
+				}
+			}
+			int[] placement = new int[3];
+			int found = Grid.bestPlacement(cells, length, placement);
+			Check.that(found == best, "best placement of length " + length + " earns " + found + " instead of " + best);
+			if(found >= 0) Check.that(score(cells, length, placement[0], placement[1], placement[2] == 1) == found, "best placement of length " + length + " is not where it says");
+		}
+	}
+
+	/**
+	 * Places and undoes random words on grids of several sizes, checking the indexes after each move.
+	 */
+	private static void placeAndUndo() {
+		for(int seed = 0; seed < 24; seed++) {
+			int size = 1 + seed % 9;
+			Random rand = new Random(seed);
+			Grid grid = Check.grid(size, new Random(seed));
+			char[][] initial = copy(grid.getGrid());
+			long initialKey = grid.getStateKey();
+			int[] scores = new int[size*size]; // Score of each word placed, the last one on top
+			int placed = 0, total = 0;
+
+			for(int move = 0; move < 150; move++) {
+				if(placed > 0 && rand.nextInt(3) == 0) {
+					Check.that(grid.undo(), "undo refused with " + placed + " words placed");
+					total -= scores[--placed];
+					Check.that(grid.getWordScore() == (placed > 0 ? scores[placed-1] : 0), "word score after undo");
+				}
+				else {
+					char[] word = new char[1 + rand.nextInt(size)];
+					for(int i = 0; i < word.length; i++) word[i] = (char) ('a' + rand.nextInt(26));
+					int l = rand.nextInt(size), c = rand.nextInt(size);
+					boolean v = rand.nextBoolean();
+					char[][] before = copy(grid.getGrid());
+					int expected = score(before, word.length, l, c, v);
+					boolean done = grid.place(new String(word), l, c, v);
+					Check.that(done == (expected >= 0), "place " + new String(word) + (v ? "v" : "h") + "(" + l + "," + c + ") returned " + done);
+					if(done) {
+						scores[placed++] = expected;
+						total += expected;
+						Check.that(grid.getWordScore() == expected, "word score " + grid.getWordScore() + " instead of " + expected);
+						for(int i = 0; i < word.length; i++) before[v ? l+i : l][v ? c : c+i] = word[i];
+					}
+					Check.that(Arrays.deepEquals(grid.getGrid(), before), "content after placing");
+				}
+				Check.that(grid.getMoveCount() == placed, "move count " + grid.getMoveCount() + " instead of " + placed);
+				checkIndexes(grid, total);
+			}
+
+			while(placed-- > 0) Check.that(grid.undo(), "undo refused");
+			Check.that(!grid.undo(), "undo accepted on an empty stack");
+			Check.that(Arrays.deepEquals(grid.getGrid(), initial), "content after undoing every word");
+			Check.that(grid.getStateKey() == initialKey, "state key after undoing every word");
+			checkIndexes(grid, 0);
+		}
+	}
+
+	/**
+	 * Checks that a copy has the same content and score, but none of the words to undo, and that it is independent.
+	 */
+	private static void copyGrid() {
+		Grid grid = Check.grid(6, new Random(1));
+		Check.that(grid.place("abc", 1, 1, false), "place on a new grid");
+		Grid copy = new Grid(grid);
+		Check.that(Arrays.deepEquals(copy.getGrid(), grid.getGrid()), "content of the copy");
+		Check.that(copy.getTotalScore() == grid.getTotalScore(), "score of the copy");
+		Check.that(!copy.undo(), "the copy can undo a word of the original");
+		Check.that(copy.place("de", 0, 0, true), "place on the copy");
+		Check.that(Character.isDigit(grid.getGrid()[0][0]), "placing on the copy changed the original");
+	}
+
+	/**
+	 * Checks that the listeners are told about each cell changed, in the order they were added, until they are removed.
+	 */
+	private static void listeners() {
+		Grid grid = Check.grid(5, new Random(2));
+		StringBuilder changes = new StringBuilder();
+		Grid.CellListener first = (l, c) -> changes.append('a').append(l).append(c);
+		Grid.CellListener second = (l, c) -> changes.append('b').append(l).append(c);
+		grid.addCellListener(first);
+		grid.addCellListener(second);
+		grid.place("xy", 2, 3, true);
+		Check.that(changes.toString().equals("a23b23a33b33"), "changes told when placing: " + changes);
+		changes.setLength(0);
+		Check.that(grid.removeCellListener(first), "remove a listener added");
+		Check.that(!grid.removeCellListener(first), "remove a listener twice");
+		grid.undo();
+		Check.that(changes.toString().equals("b33b23"), "changes told when undoing: " + changes);
+		changes.setLength(0);
+		grid.place("xy", 4, 4, false); // Does not fit
+		Check.that(changes.length() == 0, "changes told for a word not placed");
+	}
+
+	/**
+	 * Checks the value given to the content of cells.
+	 */
+	private static void digits() {
+		for(char ch = '0'; ch <= '9'; ch++) Check.that(Grid.digit(ch) == ch - '0', "digit of " + ch);
+		Check.that(Grid.digit('a') == -1, "digit of a letter");
+		Check.that(Grid.digit('\u0663') == 3, "digit of an arabic-indic three"); // Same cells as Character.isDigit()
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		placeAndUndo();
+		copyGrid();
+		listeners();
+		digits();
+		Check.done("GridTest");
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * This class keeps, for each cell, the best score a word of a given length could earn by beginning there, horizontally or vertically.
+ *
+ * The values are computed line by line and column by column with a sliding sum, so the whole grid takes one pass per direction.
+ * Afterwards, the lines and columns of the cells changed by the words placed or undone are the only ones computed again,
+ * so following a game costs a few lines and columns per word instead of the whole grid.
+ * A new grid, like after a restart, or another length, is computed entirely.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class HeatMap implements Grid.CellListener {
+	private Grid grid;
+	private char[][] cells; // Content the values were computed from, to notice when the grid is filled again
+	private int length; // Length of the words, 0 before the first computation
+	private int[] horizontal, vertical; // Score of the word beginning at each cell, line by line, -1 if it does not fit there
+	private boolean[] dirtyLines, dirtyColumns; // Lines and columns changed since the last computation
+	private boolean dirty;
+
+	/**
+	 * Creates a new HeatMap object following the changes of the given grid. Nothing is computed before setLength() is called.
+	 * @param	grid	grid the words are placed on
+	 */
+	public HeatMap(Grid grid) {
+		this.grid = grid;
+		grid.addCellListener(this);
+	}
+
+	/**
+	 * Remembers the line and the column of a changed cell, to compute them again at the next update.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	@Override
+	public void cellChanged(int l, int c) {
+		if(cells != grid.getGrid()) return; // Everything will be computed again anyway
+		dirtyLines[l] = true;
+		dirtyColumns[c] = true;
+		dirty = true;
+	}
+
+	/**
+	 * Brings the values up to date for words of the given length.
+	 * @param	length	length of the words
+	 */
+	public void setLength(int length) {
+		if(length == this.length && cells == grid.getGrid()) { // Only the changed lines and columns
+			if(!dirty) return;
+			for(int i = 0; i < cells.length; i++) {
+				if(dirtyLines[i]) this.line(i);
+				if(dirtyColumns[i]) this.column(i);
+				dirtyLines[i] = false;
+				dirtyColumns[i] = false;
+			}
+			dirty = false;
+			return;
+		}
+
+		this.length = length;
+		this.cells = grid.getGrid();
+		int size = cells.length;
+		if(horizontal == null || horizontal.length != size*size) {
+			horizontal = new int[size*size];
+			vertical = new int[size*size];
+		}
+		dirtyLines = new boolean[size];
+		dirtyColumns = new boolean[size];
+		dirty = false;
+		for(int i = 0; i < size; i++) this.line(i);
+		this.columns();
+	}
+
+	/**
+	 * Returns the length the values were computed for.
+	 * @return	length of the words
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Returns the best score a word can earn by beginning at a cell.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @return	best score horizontally or vertically, -1 if the word fits in neither direction
+	 */
+	public int get(int l, int c) {
+		return Math.max(horizontal[l*cells.length + c], vertical[l*cells.length + c]);
+	}
+
+	/**
+	 * Computes the horizontal scores of a line, from its end so that the empty cells after each cell are already counted.
+	 * @param	l	line to compute
+	 */
+	private void line(int l) {
+		char[] line = cells[l];
+		int size = line.length;
+		int sum = 0, run = 0; // Sum of the next cells, up to length of them, and number of empty cells from here
+		for(int c = size-1; c >= 0; c--) {
+			int digit = Grid.digit(line[c]);
+			if(digit < 0) {
+				sum = 0;
+				run = 0;
+				horizontal[l*size + c] = -1;
+				continue;
+			}
+			sum += digit;
+			if(++run > length) sum -= Grid.digit(line[c+length]);
+			horizontal[l*size + c] = run >= length ? sum : -1;
+		}
+	}
+
+	/**
+	 * Computes the vertical scores of every column at once, going up the lines, so that the cells are read in the order they are stored.
+	 */
+	private void columns() {
+		int size = cells.length;
+		int[] sum = new int[size], run = new int[size]; // Same as in column(), for each column
+		for(int l = size-1; l >= 0; l--) {
+			char[] line = cells[l];
+			char[] out = l+length < size ? cells[l+length] : null; // Cells leaving the sums of the columns
+			for(int c = 0; c < size; c++) {
+				int digit = Grid.digit(line[c]);
+				if(digit < 0) {
+					sum[c] = 0;
+					run[c] = 0;
+					vertical[l*size + c] = -1;
+					continue;
+				}
+				sum[c] += digit;
+				if(++run[c] > length) sum[c] -= Grid.digit(out[c]);
+				vertical[l*size + c] = run[c] >= length ? sum[c] : -1;
+			}
+		}
+	}
+
+	/**
+	 * Computes the vertical scores of a column, from its end.
+	 * @param	c	column to compute
+	 */
+	private void column(int c) {
+		int size = cells.length;
+		int sum = 0, run = 0;
+		for(int l = size-1; l >= 0; l--) {
+			int digit = Grid.digit(cells[l][c]);
+			if(digit < 0) {
+				sum = 0;
+				run = 0;
+				vertical[l*size + c] = -1;
+				continue;
+			}
+			sum += digit;
+			if(++run > length) sum -= Grid.digit(cells[l+length][c]);
+			vertical[l*size + c] = run >= length ? sum : -1;
+		}
+	}
+}
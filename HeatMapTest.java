@@ -0,0 +1,126 @@
+import java.util.*;
+
+/**
+ * This class checks that HeatMap gives each cell the best score of a word of the selected length beginning there, as the grid changes.
+ *
+ * Each value is compared with the best window found by reading the cells after it, horizontally and vertically.
+ * Words are placed and undone at random, some of them with digits, which leave their cells empty, and the length changes from time to time,
+ * so that both the lines and columns computed again and the whole grid computed again are checked.
+ * A heat map removed from the listeners of the grid must stop following it, while another one still does.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class HeatMapTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private HeatMapTest() {
+	}
+
+	/**
+	 * Finds the best score of a word beginning at a cell by reading the cells it would cover.
+	 * @param	cells	content of the grid
+	 * @param	length	length of the word
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @return	best score horizontally or vertically, -1 if the word fits in neither direction
+	 */
+	private static int window(char[][] cells, int length, int l, int c) {
+		int best = -1;
+		for(boolean v: new boolean[] {false, true}) {
+			if((v ? l : c) + length > cells.length) continue;
+			int sum = 0;
+			for(int i = 0; i < length && sum >= 0; i++) {
+				int digit = Grid.digit(v ? cells[l+i][c] : cells[l][c+i]);
+				sum = digit < 0 ? -1 : sum + digit;
+			}
+			best = Math.max(best, sum);
+		}
+		return best;
+	}
+
+	/**
+	 * Compares every value of a heat map with the windows of the grid.
+	 * @param	heatMap	heat map to check, already brought up to date
+	 * @param	grid	grid it follows
+	 * @param	when	what was done last, for the message
+	 */
+	private static void compare(HeatMap heatMap, Grid grid, String when) {
+		char[][] cells = grid.getGrid();
+		int length = heatMap.getLength();
+		for(int l = 0; l < cells.length; l++) {
+			for(int c = 0; c < cells.length; c++) {
+				int expected = window(cells, length, l, c);
+				Check.that(heatMap.get(l, c) == expected, "cell (" + l + "," + c + ") is " + heatMap.get(l, c) + " instead of " + expected
+					+ " for length " + length + " after " + when + "\n" + grid);
+			}
+		}
+	}
+
+	/**
+	 * Places and undoes random words on random grids, checking the heat map after each change.
+	 */
+	private static void follow() {
+		for(int seed = 0; seed < 200; seed++) {
+			Random rand = new Random(seed);
+			int size = 1 + seed % 8;
+			Grid grid = Check.grid(size, rand);
+			HeatMap heatMap = new HeatMap(grid);
+			int length = 1 + rand.nextInt(size+1); // Sometimes longer than the grid
+			heatMap.setLength(length);
+			compare(heatMap, grid, "the first computation");
+			for(int step = 0; step < 30; step++) {
+				String when;
+				int action = rand.nextInt(10);
+				if(action < 5) {
+					char[] word = new char[1 + rand.nextInt(size)];
+					for(int i = 0; i < word.length; i++) word[i] = rand.nextInt(5) == 0 ? (char) ('0' + rand.nextInt(10)) : 'a';
+					int l = rand.nextInt(size), c = rand.nextInt(size);
+					boolean v = rand.nextBoolean();
+					when = (grid.place(new String(word), l, c, v) ? "placing " : "failing to place ") + new String(word) + (v ? "v" : "h") + "(" + l + "," + c + ")";
+				}
+				else if(action < 8) when = grid.undo() ? "an undo" : "an undo with nothing to undo";
+				else if(action < 9) {
+					length = 1 + rand.nextInt(size+1);
+					when = "choosing another length";
+				}
+				else {
+					grid.init(rand);
+					when = "filling the grid again";
+				}
+				heatMap.setLength(length);
+				compare(heatMap, grid, when);
+			}
+		}
+	}
+
+	/**
+	 * Checks that a heat map removed from the listeners of the grid stops following it, and that the other one still does.
+	 */
+	private static void listeners() {
+		Grid grid = Check.grid(6, new Random(1));
+		HeatMap kept = new HeatMap(grid);
+		HeatMap removed = new HeatMap(grid);
+		kept.setLength(3);
+		removed.setLength(3);
+		Check.that(grid.removeCellListener(removed) && !grid.removeCellListener(removed), "heat map removed twice");
+		int before = removed.get(2, 0);
+		Check.that(grid.place("abc", 2, 0, false), "word placed");
+		kept.setLength(3);
+		removed.setLength(3);
+		compare(kept, grid, "removing the other heat map");
+		Check.that(removed.get(2, 0) == before && before >= 0, "removed heat map still follows the grid");
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		follow();
+		listeners();
+		Check.done("HeatMapTest");
+	}
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * This class finds where a word earns the most points, in a background thread, so that the window never waits for it.
+ *
+ * The search runs in a single thread, one hint at a time, on its own copy of the grid.
+ * Instead of copying the grid at each hint, the cells changed since the last hint are collected as a CellListener,
+ * and written over the copy by the search thread before it searches again. The whole grid is only copied for a new grid,
+ * or when more cells changed than the grid has.
+ * Asking for a new hint cancels the previous one, and a result is only given if nothing changed since it was asked for:
+ * neither a newer hint was asked for, nor a word was placed on the grid.
+ * Every method must be called from the Swing event thread, which the results are given on too.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class HintEngine implements Grid.CellListener {
+	private Grid grid;
+	private char[][] source; // Cells the copy follows, to notice a new grid
+	private long[] changes = new long[16]; // Cells changed since the last hint, each one its line*size + column from bit 16 and its new content
+	private int changeCount;
+	private char[][] copy; // Only read and written by the search thread
+	private ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "hints");
+		thread.setDaemon(true); // Must not keep the program running once the window is closed
+		return thread;
+	});
+	private Future<?> pending; // Last hint asked for
+	private long generation; // Number of hints asked for or cancelled, to recognize the results of older ones
+
+	/**
+	 * Creates a new HintEngine object for the given grid.
+	 * @param	grid	grid the words are placed on
+	 */
+	public HintEngine(Grid grid) {
+		this.grid = grid;
+		grid.addCellListener(this);
+	}
+
+	/**
+	 * Remembers the new content of a changed cell, to write it over the copy before the next search.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	@Override
+	public void cellChanged(int l, int c) {
+		char[][] cells = grid.getGrid();
+		if(cells != source) return; // Copied whole at the next hint anyway
+		if(changeCount == changes.length) changes = Arrays.copyOf(changes, 2*changeCount);
+		changes[changeCount++] = (long) (l*cells.length + c) << 16 | cells[l][c];
+	}
+
+	/**
+	 * Starts looking for the best placement of a word with the given length, cancelling the previous search.
+	 * @param	length	length of the word
+	 * @param	result	given the line, the column, 1 if vertical and the score of the best placement, or null if the word fits nowhere
+	 */
+	public void request(int length, Consumer<int[]> result) {
+		this.cancel();
+		long id = generation;
+		long key = grid.getStateKey();
+		char[][] cells = grid.getGrid();
+		if(cells != source || changeCount > cells.length*cells.length) { // New grid, or the changes would take longer to write than the grid
+			char[][] whole = cells.clone(); // Copied here, the grid is only modified on this thread
+			for(int i = 0; i < whole.length; i++) whole[i] = whole[i].clone();
+			source = cells;
+			executor.execute(() -> copy = whole);
+		}
+		else if(changeCount > 0) {
+			long[] changed = Arrays.copyOf(changes, changeCount);
+			executor.execute(() -> { // Not cancelled with the search, so that the copy never misses a change
+				for(long change: changed) {
+					int cell = (int) (change >>> 16);
+					copy[cell / copy.length][cell % copy.length] = (char) change;
+				}
+			});
+		}
+		changeCount = 0;
+
+		pending = executor.submit(() -> {
+			int[] placement = new int[3];
+			int score = Grid.bestPlacement(copy, length, placement);
+			if(Thread.currentThread().isInterrupted()) return; // Cancelled meanwhile
+			int[] hint = score < 0 ? null : new int[] {placement[0], placement[1], placement[2], score};
+			SwingUtilities.invokeLater(() -> {
+				if(id == generation && key == grid.getStateKey()) result.accept(hint); // Still the last hint asked for, on the same grid
+			});
+		});
+	}
+
+	/**
+	 * Cancels the search in progress, if any. Its result will not be given.
+	 */
+	public void cancel() {
+		generation++;
+		if(pending != null) pending.cancel(true);
+		pending = null;
+	}
+}
@@ -0,0 +1,89 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records durations from many threads and gives their percentiles.
+ *
+ * Durations are counted in buckets rather than stored: each power of two is split into 16 buckets, so any duration is known within about 6%.
+ * Recording a duration is a single atomic increment, and the memory used does not depend on the number of durations.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Latency {
+	private static final int SUB = 4; // Each power of two is split into 2^SUB buckets
+	private AtomicLongArray counts = new AtomicLongArray(64 << SUB);
+
+	/**
+	 * Creates a new Latency object without any duration.
+	 */
+	public Latency() {
+	}
+
+	/**
+	 * Returns the bucket counting a duration.
+	 * @param	nanos	duration in nanoseconds
+	 * @return	index of the bucket
+	 */
+	private static int bucket(long nanos) {
+		if(nanos < 1 << SUB) return (int) Math.max(nanos, 0); // Small durations have a bucket each
+		int exp = 63 - Long.numberOfLeadingZeros(nanos); // Power of two, at least SUB
+		int sub = (int) (nanos >>> (exp - SUB)) & ((1 << SUB) - 1); // Next SUB bits
+		return ((exp - SUB + 1) << SUB) + sub;
+	}
+
+	/**
+	 * Returns the smallest duration counted by a bucket.
+	 * @param	bucket	index of the bucket
+	 * @return	duration in nanoseconds
+	 */
+	private static long value(int bucket) {
+		if(bucket < 1 << SUB) return bucket;
+		int exp = (bucket >>> SUB) + SUB - 1;
+		long sub = bucket & ((1 << SUB) - 1);
+		return ((1L << SUB) + sub) << (exp - SUB);
+	}
+
+	/**
+	 * Counts a duration.
+	 * @param	nanos	duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		counts.incrementAndGet(bucket(nanos));
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 * @return	number of durations
+	 */
+	public long count() {
+		long total = 0;
+		for(int i = 0; i < counts.length(); i++) total += counts.get(i);
+		return total;
+	}
+
+	/**
+	 * Returns the duration below which the given fraction of the recorded durations are.
+	 * @param	fraction	between 0 and 1, for instance 0.99 for the 99th percentile
+	 * @return	duration in nanoseconds, 0 if nothing was recorded
+	 */
+	public long percentile(double fraction) {
+		long rank = (long) Math.ceil(fraction * count());
+		long seen = 0;
+		for(int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if(seen >= Math.max(rank, 1)) return value(i);
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the main percentiles in microseconds.
+	 * @return	number of durations, 50th, 90th, 99th, 99.9th percentiles and maximum
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d commands, latency in us: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+			count(), percentile(0.5) / 1e3, percentile(0.9) / 1e3, percentile(0.99) / 1e3, percentile(0.999) / 1e3, percentile(1) / 1e3);
+	}
+}
@@ -0,0 +1,335 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class chooses moves with a Monte Carlo tree search, for lists of words too long for the exact search of Solver.
+ *
+ * Each iteration goes down a tree of moves, choosing at each node the child with the best UCT value: its mean score,
+ * plus a bonus for the children tried less often. Below the tree, a rollout places random words at random positions until none fits,
+ * and the score of the whole iteration is added to the nodes it went through.
+ * Words of the same length earn the same points, so the moves of the tree are lengths and positions, and the words are counted by length.
+ * A node only gets the positions earning the most points right away as children, found by Placements, so that large grids still have few children per node.
+ * The grid of the search is a copy of the game grid, on which words are placed and undone with the undo stack of Grid.
+ *
+ * Several threads each search their own tree from the same position, and the move tried the most often by all of them is played.
+ * After a move, the subtree of the played move is kept as the tree of the next search, if the game reached the position it expected.
+ * The same object can be used by several threads at the same time, like Simulation does: each one has its own trees.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class MctsPlayer implements MovePolicy {
+	private static final double EXPLORATION = 0.5; // Weight of the bonus of the children tried less often
+	private static final int TRIES = 16; // Random positions a rollout tries for a word before giving up on it
+
+	private int threads;
+	private long millis; // Time given to each move, 0 for no limit
+	private long iterations; // Iterations of each move for all threads together, 0 for no limit
+	private int width; // Children of each node
+	private ThreadLocal<Tree[]> trees; // Tree of each searching thread, for each thread choosing moves
+	private ExecutorService pool; // Runs the trees after the first one, created when needed
+	private AtomicLong rollouts = new AtomicLong();
+	private AtomicLong nanos = new AtomicLong();
+
+	/**
+	 * Creates a new MctsPlayer object. At least one of the time and the number of iterations must be given.
+	 * @param	threads	number of trees searched at the same time
+	 * @param	millis	time given to each move in milliseconds, 0 for no limit
+	 * @param	iterations	number of iterations of each move for all trees together, 0 for no limit
+	 * @param	width	number of positions tried from each node, the ones earning the most points right away
+	 */
+	public MctsPlayer(int threads, long millis, long iterations, int width) {
+		if(threads < 1 || width < 1 || millis < 0 || iterations < 0 || (millis == 0 && iterations == 0)) throw new IllegalArgumentException("Invalid search budget");
+		this.threads = threads;
+		this.millis = millis;
+		this.iterations = iterations;
+		this.width = width;
+		this.trees = ThreadLocal.withInitial(() -> {
+			Tree[] t = new Tree[threads];
+			for(int i = 0; i < threads; i++) t[i] = new Tree();
+			return t;
+		});
+	}
+
+	/**
+	 * Chooses the next move by searching from the current position of the game, which is not modified.
+	 * @param	game	game to play in
+	 * @param	rand	random numbers generator, owned by the calling thread, used by the first tree and to seed the others
+	 * @return	a valid move, or null if no word can be placed anymore
+	 */
+	@Override
+	public Move choose(Game game, Random rand) {
+		long start = System.nanoTime();
+		Tree[] workers = trees.get();
+		for(int i = 0; i < threads; i++) workers[i].prepare(game, i == 0 ? rand : new Random(rand.nextLong()));
+		if(workers[0].root.moves.length == 0) return null; // No word fits anymore
+
+		long deadline = millis > 0 ? start + millis*1000000 : Long.MAX_VALUE;
+		long budget = iterations > 0 ? (iterations + threads - 1) / threads : Long.MAX_VALUE;
+		if(threads == 1) workers[0].search(deadline, budget);
+		else {
+			synchronized(this) {
+				if(pool == null) pool = Executors.newCachedThreadPool(task -> {
+					Thread thread = new Thread(task, "mcts");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			List<Future<?>> running = new ArrayList<>();
+			for(int i = 1; i < threads; i++) {
+				Tree tree = workers[i];
+				running.add(pool.submit(() -> tree.search(deadline, budget)));
+			}
+			workers[0].search(deadline, budget); // The calling thread searches too
+			try {
+				for(Future<?> f: running) f.get();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			catch(ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		// Add up the visits of each move of the root in all trees
+		HashMap<Long, Long> visits = new HashMap<>();
+		for(Tree tree: workers) {
+			for(int i = 0; i < tree.root.moves.length; i++) {
+				if(tree.root.children[i] != null) visits.merge(tree.root.moves[i], (long) tree.root.children[i].visits, Long::sum);
+			}
+		}
+		long best = workers[0].root.moves[0]; // Best move right away if nothing was searched
+		long most = 0;
+		for(Map.Entry<Long, Long> entry: visits.entrySet()) {
+			if(entry.getValue() > most || (entry.getValue() == most && entry.getKey() < best)) { // Same choice whatever the order of the map
+				best = entry.getKey();
+				most = entry.getValue();
+			}
+		}
+		for(Tree tree: workers) tree.advance(best);
+		nanos.addAndGet(System.nanoTime() - start);
+
+		int length = Placements.length(best);
+		int index = game.list.nextIndex(0);
+		while(game.list.wordLength(index) != length) index = game.list.nextIndex(index+1); // First remaining word of that length
+		return new Move(index, Placements.line(best), Placements.column(best), Placements.vertical(best));
+	}
+
+	/**
+	 * Returns the number of rollouts played and how many were played per second of search.
+	 * @return	statistics about the searches
+	 */
+	public String getStatistics() {
+		double seconds = nanos.get() / 1e9;
+		return rollouts.get() + " rollouts in " + String.format("%.3f", seconds) + " s (" + Math.round(rollouts.get() / Math.max(seconds, 1e-9)) + " rollouts/s)";
+	}
+
+	/**
+	 * A position of the tree. Its children are created the first time they are tried.
+	 */
+	private static class Node {
+		long[] moves; // Moves to try from here, earning the most points first, null until the node is expanded
+		Node[] children; // Position after each move, null until the move is tried
+		int tried; // Moves tried at least once, the first ones of moves
+		int visits;
+		double total; // Sum of the scores of the iterations that went through this node
+	}
+
+	/**
+	 * The tree of one searching thread, with its own grid and counts of words.
+	 */
+	private class Tree {
+		Node root;
+		long rootKey; // Position the root stands for, after advance()
+		char[][] cells; // Content of the game grid, to recognize a new game on the same Grid object
+		Grid grid;
+		int[] counts; // Remaining words of each length
+		CharSequence[] samples = new CharSequence[0]; // A word of each length, written on the grid of the search
+		Random rand;
+		double best = 1; // Highest score of an iteration so far, which scales the mean scores to compare them with the bonus
+		Node[] path = new Node[16]; // Nodes the current iteration went through
+		int[] placed = new int[16]; // Length of each word placed by the current iteration, negative for the ones given up
+		int placedCount;
+
+		/**
+		 * Copies the position of the game, and keeps the tree if it was expecting this position.
+		 * @param	game	game to search
+		 * @param	rand	random numbers generator for this search
+		 */
+		void prepare(Game game, Random rand) {
+			this.rand = rand;
+			this.grid = new Grid(game.grid);
+			this.counts = new int[game.list.maxLength()+1];
+			for(int length = 1; length < counts.length; length++) counts[length] = game.list.countOfLength(length);
+			if(samples.length < counts.length) {
+				samples = new CharSequence[counts.length];
+				for(int length = 0; length < counts.length; length++) samples[length] = "x".repeat(length); // Letters do not matter to the search
+			}
+			if(root == null || cells != game.grid.getGrid() || rootKey != this.key()) { // Another position, or another game
+				root = new Node();
+				best = 1;
+			}
+			cells = game.grid.getGrid();
+			if(root.moves == null) this.expand(root);
+		}
+
+		/**
+		 * Returns a key of the position of the search: the occupied cells and the number of words of each length.
+		 * @return	key of the position
+		 */
+		long key() {
+			long key = grid.getOccupancyKey();
+			for(int length = 1; length < counts.length; length++) key += counts[length] * Zobrist.key((long) length << 32); // Far from the numbers used by Grid
+			return key;
+		}
+
+		/**
+		 * Makes the child of the played move the root of the next search.
+		 * @param	move	move played
+		 */
+		void advance(long move) {
+			int i = 0;
+			while(i < root.tried && root.moves[i] != move) i++;
+			Node next = i < root.tried ? root.children[i] : null;
+			this.apply(move); // On the copy of the grid, to know the key of the position after the move
+			rootKey = this.key();
+			root = next;
+		}
+
+		/**
+		 * Runs iterations until the time is out or the budget is spent, at least one.
+		 * @param	deadline	value of System.nanoTime() to stop at
+		 * @param	budget	maximum number of iterations
+		 */
+		void search(long deadline, long budget) {
+			int base = grid.getTotalScore();
+			long i = 0;
+			do {
+				this.iterate(base);
+				i++;
+			} while(i < budget && ((i & 15) != 0 || System.nanoTime() < deadline));
+			rollouts.addAndGet(i);
+		}
+
+		/**
+		 * Goes down the tree, adds a node, plays a rollout from it and adds its score to the nodes it went through.
+		 * @param	base	score of the grid at the root
+		 */
+		void iterate(int base) {
+			Node node = root;
+			int depth = 0;
+			path[depth++] = node;
+			placedCount = 0;
+			while(true) {
+				if(node.moves == null) this.expand(node); // Second visit of the node, so that nodes visited once do not take room
+				if(node.moves.length == 0) break; // No word fits anymore
+				int next = node.tried < node.moves.length ? node.tried++ : this.select(node); // Untried moves first, best right away first
+				this.apply(node.moves[next]);
+				boolean leaf = node.children[next] == null;
+				if(leaf) node.children[next] = new Node();
+				node = node.children[next];
+				if(depth == path.length) path = Arrays.copyOf(path, 2*depth);
+				path[depth++] = node;
+				if(leaf) break;
+			}
+			this.rollout();
+
+			double score = grid.getTotalScore() - base;
+			best = Math.max(best, score);
+			for(int i = 0; i < depth; i++) {
+				path[i].visits++;
+				path[i].total += score;
+			}
+			while(placedCount > 0) { // Back to the position of the root
+				int length = placed[--placedCount];
+				if(length > 0) grid.undo();
+				counts[Math.abs(length)]++;
+			}
+		}
+
+		/**
+		 * Chooses the child with the best UCT value, among children that were all tried.
+		 * @param	node	node to choose from
+		 * @return	index of the move
+		 */
+		int select(Node node) {
+			double log = Math.log(node.visits);
+			int chosen = 0;
+			double max = Double.NEGATIVE_INFINITY;
+			for(int i = 0; i < node.moves.length; i++) {
+				Node child = node.children[i];
+				double value = child.total / child.visits / best + EXPLORATION * Math.sqrt(log / child.visits);
+				if(value > max) {
+					max = value;
+					chosen = i;
+				}
+			}
+			return chosen;
+		}
+
+		/**
+		 * Places the word of a move on the grid of the search.
+		 * @param	move	move to play, valid in the current position
+		 */
+		void apply(long move) {
+			int length = Placements.length(move);
+			grid.place(samples[length], Placements.line(move), Placements.column(move), Placements.vertical(move));
+			counts[length]--;
+			this.push(length);
+		}
+
+		/**
+		 * Remembers a word placed or given up by the current iteration.
+		 * @param	length	length of the word, negative if it was given up
+		 */
+		void push(int length) {
+			if(placedCount == placed.length) placed = Arrays.copyOf(placed, 2*placedCount);
+			placed[placedCount++] = length;
+		}
+
+		/**
+		 * Places random words at random positions until no word fits, or until every remaining word was given up.
+		 */
+		void rollout() {
+			int size = grid.getGrid().length;
+			while(true) {
+				int room = Math.min(grid.maxContiguous(), counts.length-1);
+				int total = 0;
+				for(int length = 1; length <= room; length++) total += counts[length];
+				if(total == 0) return;
+				int pick = rand.nextInt(total); // Each remaining word that may still fit is as likely
+				int length = 1;
+				while(pick >= counts[length]) pick -= counts[length++];
+
+				boolean done = false;
+				for(int t = 0; t < TRIES && !done; t++) {
+					boolean v = rand.nextBoolean();
+					int along = rand.nextInt(size - length + 1), across = rand.nextInt(size);
+					if(grid.fits(length, v ? along : across, v ? across : along, v)) {
+						this.apply(Placements.move(length, v ? along : across, v ? across : along, v ? 1 : 0));
+						done = true;
+					}
+				}
+				if(!done) { // Probably no room for it anymore, do not try it again in this rollout
+					counts[length]--;
+					this.push(-length);
+				}
+			}
+		}
+
+		/**
+		 * Gives a node the moves earning the most points right away, up to the width of the search.
+		 * @param	node	node of the current position, not expanded yet
+		 */
+		void expand(Node node) {
+			long[] best = new long[width];
+			int count = Placements.best(grid, counts, best);
+			node.moves = new long[count];
+			for(int i = 0; i < count; i++) node.moves[i] = best[i] & Placements.MOVE;
+			node.children = new Node[count];
+		}
+	}
+}
@@ -0,0 +1,93 @@
+import java.util.*;
+
+/**
+ * This class checks that MctsPlayer only plays moves that can be played, finishes its games, and does better than greedy where greedy goes wrong.
+ *
+ * The player is given a number of iterations and no time limit, so that a seeded Random makes the whole game the same at each run.
+ * Each move chosen is checked before it is played: its word must still be in the list and fit where it is placed.
+ * The game is finished when the player gives no move, which must only happen once greedy, which tries every placement, has none either.
+ * On a board where the best first move right away spoils the next ones, checked with Solver, the player must score at least as much as greedy.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class MctsPlayerTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private MctsPlayerTest() {
+	}
+
+	/**
+	 * Plays a whole game with a policy on copies of a grid and words, checking each move before it is played.
+	 * @param	grid	grid to start from, not modified
+	 * @param	list	words to place, not modified
+	 * @param	policy	policy choosing the moves
+	 * @param	rand	random numbers generator given to the policy
+	 * @param	moves	receives the moves played
+	 * @return	total score at the end of the game
+	 */
+	private static int play(Grid grid, WordsList list, MovePolicy policy, Random rand, List<String> moves) {
+		Game game = new Game(new Grid(grid), new WordsList(list));
+		game.setOutput(null);
+		game.setEnd(() -> {});
+		Move move;
+		while((move = policy.choose(game, rand)) != null) {
+			String word = game.list.getWord(move.getIndex());
+			Check.that(word != null, "move " + move + " places a word not in the list, or twice");
+			Check.that(game.grid.fits(word.length(), move.getLine(), move.getColumn(), move.isVertical()), "move " + move + " does not fit\n" + game.grid);
+			Check.that(move.play(game), "move " + move + " refused by the game");
+			moves.add(move.toString());
+		}
+		Check.that(MovePolicy.greedy(game, rand) == null, "game given up while a word still fits, after " + moves + "\n" + game.grid);
+		return game.grid.getTotalScore();
+	}
+
+	/**
+	 * Plays random positions with one tree and two, checking the moves, and that the same seed plays the same game.
+	 */
+	private static void legal() {
+		for(int seed = 0; seed < 40; seed++) {
+			Random rand = new Random(seed);
+			int size = 3 + seed % 4;
+			Grid grid = Check.grid(size, rand);
+			WordsList list = Check.words(rand, 3 + rand.nextInt(6), size);
+			for(int threads: new int[] {1, 2}) {
+				List<String> first = new ArrayList<>(), second = new ArrayList<>();
+				int score = play(grid, list, new MctsPlayer(threads, 0, 200, 8), new Random(seed), first);
+				Check.that(play(grid, list, new MctsPlayer(threads, 0, 200, 8), new Random(seed), second) == score && first.equals(second),
+					"same seed played " + first + " then " + second + " with " + threads + " threads");
+			}
+		}
+	}
+
+	/**
+	 * Plays a board where greedy is known to lose points, and checks that the tree search does not.
+	 *
+	 * Greedy first places the word of 4 letters on the line of 7, 8, 5 and 7, then the others can only take what is left, 78 in all.
+	 * Placing it on the first line and the other words down the columns below earns 85.
+	 */
+	private static void betterThanGreedy() {
+		Grid grid = Check.grid(4, new Random(25));
+		WordsList list = Check.words("iyfm\nmpk\nymg\ndb\nwey\n");
+		int greedy = play(grid, list, MovePolicy.byName("greedy"), new Random(0), new ArrayList<>());
+		int best = new Solver(grid, list).solve();
+		Check.that(greedy < best, "greedy reaches the best score " + best + ", so the board does not check anything\n" + grid);
+		for(long seed = 0; seed < 5; seed++) {
+			List<String> moves = new ArrayList<>();
+			int score = play(grid, list, new MctsPlayer(1, 0, 500, 16), new Random(seed), moves);
+			Check.that(score >= greedy, "tree search with seed " + seed + " scored " + score + " with " + moves + ", less than greedy " + greedy);
+		}
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		legal();
+		betterThanGreedy();
+		Check.done("MctsPlayerTest");
+	}
+}
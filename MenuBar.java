@@ -1,6 +1,7 @@
 import java.awt.*;
 import javax.swing.*;
 import java.awt.event.*;
+import java.util.function.IntConsumer;
 
 /**
  * This creates a JMenuBar at the top of the window.
@@ -10,46 +11,60 @@ import java.awt.event.*;
  */
 
 public class MenuBar extends JMenuBar implements ActionListener{
-	private JMenu menuFile, menuHelp; //the differents menus in the MenuBar.
-	private JMenuItem menuItemRestart, menuItemExit, menuItemRules, menuItemAbout; //the differents menuItem in the menus.
+	private JMenu menuFile, menuView, menuHelp; //the differents menus in the MenuBar.
+	private JMenuItem menuItemRestart, menuItemExit, menuItemZoomIn, menuItemZoomOut, menuItemRules, menuItemAbout; //the differents menuItem in the menus.
 	private Runnable reload;
+	private IntConsumer zoom;
 
 	/**
 	 * Class Constructor
 	 * @param	reload	Runnable functional interface to call when we want to restart the game.
+	 * @param	zoom	called with the number of zoom levels to go up, or down if negative.
 	 */
-	public MenuBar(Runnable reload){
+	public MenuBar(Runnable reload, IntConsumer zoom){
 		this.reload = reload;
+		this.zoom = zoom;
 		//Creates the menus of the JMenuBar.
 		menuFile = new JMenu("File");
+		menuView = new JMenu("View");
 		menuHelp = new JMenu("Help");
 
 		//Creates the menuItems of the menus.
 		menuItemRestart = new JMenuItem("Restart");
 		menuItemExit = new JMenuItem("Exit");
+		menuItemZoomIn = new JMenuItem("Zoom in");
+		menuItemZoomOut = new JMenuItem("Zoom out");
 		menuItemRules = new JMenuItem("Rules");
 		menuItemAbout = new JMenuItem("About Us");
 
-		//Add shortcuts to the menuItems.
-		menuItemRestart.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R, KeyEvent.CTRL_MASK));
-		menuItemExit.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Q, KeyEvent.CTRL_MASK));
-		menuItemRules.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L, KeyEvent.CTRL_MASK));
-		menuItemAbout.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_A, KeyEvent.CTRL_MASK));
+		//Add shortcuts to the menuItems, with the key the platform uses for menus (Ctrl, or Cmd on macOS).
+		int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+		menuItemRestart.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R, shortcut));
+		menuItemExit.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Q, shortcut));
+		menuItemZoomIn.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_ADD, shortcut));
+		menuItemZoomOut.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_SUBTRACT, shortcut));
+		menuItemRules.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L, shortcut));
+		menuItemAbout.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_A, shortcut));
 
 		//Add a ActionListener to each menuItem.
 		menuItemRestart.addActionListener(this);
 		menuItemExit.addActionListener(this);
+		menuItemZoomIn.addActionListener(this);
+		menuItemZoomOut.addActionListener(this);
 		menuItemRules.addActionListener(this);
 		menuItemAbout.addActionListener(this);
 
 		//Add the menuItems in the menus
 		menuFile.add(menuItemRestart);
 		menuFile.add(menuItemExit);
+		menuView.add(menuItemZoomIn);
+		menuView.add(menuItemZoomOut);
 		menuHelp.add(menuItemRules);
 		menuHelp.add(menuItemAbout);
 
 		//Add the menus in the MenuBar.
 		this.add(menuFile);
+		this.add(menuView);
 		this.add(menuHelp);
 
 		setVisible(true);
@@ -67,6 +82,12 @@ public class MenuBar extends JMenuBar implements ActionListener{
 		if(e.getSource() == menuItemExit){
 			System.exit(0);
 		}
+		if(e.getSource() == menuItemZoomIn){
+			zoom.accept(1);
+		}
+		if(e.getSource() == menuItemZoomOut){
+			zoom.accept(-1);
+		}
 		if(e.getSource() == menuItemRules){
 			JOptionPane rules = new JOptionPane();
 			String r = " You have to place the words provided on the right of the screen in the grid. \n" +
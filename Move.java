@@ -0,0 +1,77 @@
+/**
+ * This class describes a move: which word of the list to place and where.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Move {
+	private final int index;
+	private final int l;
+	private final int c;
+	private final boolean v;
+
+	/**
+	 * Creates a new Move object.
+	 * @param	index	index of the word in the words list
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, the word is placed vertically, otherwise horizontally
+	 */
+	public Move(int index, int l, int c, boolean v) {
+		this.index = index;
+		this.l = l;
+		this.c = c;
+		this.v = v;
+	}
+
+	/**
+	 * Places the word of this move through the given game.
+	 * @param	game	game to play the move in
+	 * @return	true if the word was placed, false if the move is not valid in this game
+	 */
+	public boolean play(Game game) {
+		return game.setWord(index, l, c, v);
+	}
+
+	/**
+	 * Returns the index of the word in the words list.
+	 * @return	index of the word
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Returns the line the word begins at.
+	 * @return	line of the first letter
+	 */
+	public int getLine() {
+		return this.l;
+	}
+
+	/**
+	 * Returns the column the word begins at.
+	 * @return	column of the first letter
+	 */
+	public int getColumn() {
+		return this.c;
+	}
+
+	/**
+	 * Returns the direction of the word.
+	 * @return	true if the word is placed vertically
+	 */
+	public boolean isVertical() {
+		return this.v;
+	}
+
+	/**
+	 * Returns the move with the same syntax as the commands typed in the Terminal, like 3h(0,2).
+	 * @return	a string representation of the move
+	 */
+	@Override
+	public String toString() {
+		return index + (v ? "v" : "h") + "(" + l + "," + c + ")";
+	}
+}
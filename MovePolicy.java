@@ -0,0 +1,111 @@
+import java.util.Random;
+
+/**
+ * This interface is implemented by the players that choose moves without any human, like the ones used by Simulation.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public interface MovePolicy {
+	/**
+	 * Chooses the next move to play. The game must not be modified.
+	 * @param	game	game to play in
+	 * @param	rand	random numbers generator, owned by the calling thread
+	 * @return	a valid move, or null if no word can be placed anymore
+	 */
+	Move choose(Game game, Random rand);
+
+	/**
+	 * Returns the policy with the given name.
+	 * @param	name	"random", "greedy", or "mcts" for a tree search of 2000 iterations per move in the calling thread
+	 * @return	the policy, or null if the name is unknown
+	 */
+	static MovePolicy byName(String name) {
+		switch(name) {
+			case "random":
+				return MovePolicy::random;
+			case "greedy":
+				return MovePolicy::greedy;
+			case "mcts":
+				return new MctsPlayer(1, 0, 2000, 16);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Plays a random word that can still be placed, at a random position where it fits.
+	 * @param	game	game to play in
+	 * @param	rand	random numbers generator
+	 * @return	a valid move, or null if no word can be placed anymore
+	 */
+	static Move random(Game game, Random rand) {
+		Grid grid = game.grid;
+		WordsList list = game.list;
+		int room = grid.maxContiguous(); // No longer word can be placed
+		if(list.size() == 0 || list.minLength() > room) return null;
+
+		// Random remaining word, looking further in the list if the first one found is too long
+		int index = list.nextIndex(rand.nextInt(list.loadedCount()));
+		if(index < 0) index = list.nextIndex(0);
+		while(list.wordLength(index) > room) {
+			index = list.nextIndex(index+1);
+			if(index < 0) index = list.nextIndex(0);
+		}
+
+		int length = list.wordLength(index);
+		int size = grid.getGrid().length;
+		for(int i = 0; i < 64; i++) { // Random positions are usually enough while the grid is not too full
+			boolean v = rand.nextBoolean();
+			int along = rand.nextInt(size - length + 1);
+			int across = rand.nextInt(size);
+			if(grid.fits(length, v ? along : across, v ? across : along, v)) return new Move(index, v ? along : across, v ? across : along, v);
+		}
+		Move move = null;
+		int found = 0;
+		for(int l = 0; l < size; l++) { // Otherwise, choose uniformly among all positions where it fits
+			for(int c = 0; c < size; c++) {
+				for(int v = 0; v < 2; v++) {
+					if(grid.fits(length, l, c, v == 1) && rand.nextInt(++found) == 0) move = new Move(index, l, c, v == 1);
+				}
+			}
+		}
+		return move;
+	}
+
+	/**
+	 * Plays the move earning the most points right now, whatever comes next.
+	 * @param	game	game to play in
+	 * @param	rand	random numbers generator, not used
+	 * @return	a valid move, or null if no word can be placed anymore
+	 */
+	static Move greedy(Game game, Random rand) {
+		Grid grid = game.grid;
+		WordsList list = game.list;
+		int size = grid.getGrid().length;
+		int best = -1, bestLength = 0, bestL = 0, bestC = 0;
+		boolean bestV = false;
+		for(int length = list.minLength(); length > 0 && length <= Math.min(list.maxLength(), grid.maxContiguous()); length++) {
+			if(list.countOfLength(length) == 0) continue;
+			for(int l = 0; l < size; l++) {
+				for(int c = 0; c < size; c++) {
+					for(int v = 0; v < 2; v++) {
+						int score = grid.scoreOf(length, l, c, v == 1);
+						if(score > best) {
+							best = score;
+							bestLength = length;
+							bestL = l;
+							bestC = c;
+							bestV = v == 1;
+						}
+					}
+				}
+			}
+		}
+		if(best < 0) return null;
+		int index = list.nextIndex(0);
+		while(list.wordLength(index) != bestLength) index = list.nextIndex(index+1); // First remaining word of that length
+		return new Move(index, bestL, bestC, bestV);
+	}
+}
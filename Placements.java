@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * This class finds the placements earning the most points right away, for the players searching ahead like MctsPlayer and BeamSearch.
+ *
+ * A placement is packed in a long: length of the word from bit 29, line from bit 15, column from bit 1, and 1 in bit 0 if vertical.
+ * Words of the same length earn the same points at the same place, so a placement does not say which word it places.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+final class Placements {
+	static final long MOVE = (1L << 40) - 1; // Bits of the placement in the longs given by best(), the score is above
+
+	/**
+	 * This class only has static methods.
+	 */
+	private Placements() {
+	}
+
+	/**
+	 * Packs a placement in a long.
+	 * @param	length	length of the word
+	 * @param	l	line the word begins at
+	 * @param	c	column the word begins at
+	 * @param	v	1 if the word is vertical, 0 otherwise
+	 * @return	the placement
+	 */
+	static long move(int length, int l, int c, int v) {
+		return (long) length << 29 | l << 15 | c << 1 | v;
+	}
+
+	/**
+	 * Returns the length of the word of a placement.
+	 * @param	move	placement, without its score
+	 * @return	length of the word
+	 */
+	static int length(long move) {
+		return (int) (move >>> 29);
+	}
+
+	/**
+	 * Returns the line a placement begins at.
+	 * @param	move	placement
+	 * @return	line of the first letter
+	 */
+	static int line(long move) {
+		return (int) (move >>> 15) & 0x3FFF;
+	}
+
+	/**
+	 * Returns the column a placement begins at.
+	 * @param	move	placement
+	 * @return	column of the first letter
+	 */
+	static int column(long move) {
+		return (int) (move >>> 1) & 0x3FFF;
+	}
+
+	/**
+	 * Returns the direction of a placement.
+	 * @param	move	placement
+	 * @return	true if the word is vertical
+	 */
+	static boolean vertical(long move) {
+		return (move & 1) == 1;
+	}
+
+	/**
+	 * Finds the placements earning the most points, for every length that still has words.
+	 * @param	grid	grid to place the words on
+	 * @param	counts	number of words left for each length
+	 * @param	best	receives the placements with their score from bit 40, highest first; its length is the number of placements wanted
+	 * @return	number of placements found, at most the length of best
+	 */
+	static int best(Grid grid, int[] counts, long[] best) {
+		int count = 0;
+		int room = Math.min(grid.maxContiguous(), counts.length-1);
+		for(int length = 1; length <= room; length++) {
+			if(counts[length] > 0) count = scan(grid.getGrid(), length, best, count);
+		}
+		return sort(best, count);
+	}
+
+	/**
+	 * Finds the placements earning the most points for a word of the given length.
+	 * @param	grid	grid to place the word on
+	 * @param	length	length of the word
+	 * @param	best	receives the placements with their score from bit 40, highest first; its length is the number of placements wanted
+	 * @return	number of placements found, at most the length of best
+	 */
+	static int best(Grid grid, int length, long[] best) {
+		return sort(best, length <= grid.maxContiguous() ? scan(grid.getGrid(), length, best, 0) : 0);
+	}
+
+	/**
+	 * Adds the placements of a length to the best ones found so far.
+	 *
+	 * Each line and column is read once, keeping the sum of the digits of the last cells like Grid.bestPlacement(),
+	 * and the best placements are kept in a heap with the lowest one on top, so that it is the one replaced.
+	 * @param	cells	content of the grid
+	 * @param	length	length of the word
+	 * @param	best	heap of the best placements
+	 * @param	count	number of placements in the heap
+	 * @return	number of placements in the heap afterwards
+	 */
+	private static int scan(char[][] cells, int length, long[] best, int count) {
+		int size = cells.length;
+		for(int v = 0; v < 2; v++) {
+			for(int i = 0; i < size; i++) { // Line, or column when vertical
+				int sum = 0, run = 0;
+				for(int j = 0; j < size; j++) {
+					int digit = Grid.digit(v == 1 ? cells[j][i] : cells[i][j]);
+					if(digit < 0) {
+						sum = 0;
+						run = 0;
+						continue;
+					}
+					sum += digit;
+					if(++run > length) sum -= Grid.digit(v == 1 ? cells[j-length][i] : cells[i][j-length]);
+					if(run < length) continue;
+					long key = (long) sum << 40 | move(length, v == 1 ? j-length+1 : i, v == 1 ? i : j-length+1, v);
+					if(count < best.length) up(best, count++, key);
+					else if(key > best[0]) {
+						best[0] = key;
+						down(best, count);
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sorts the heap of the best placements, highest first.
+	 * @param	best	heap of the best placements
+	 * @param	count	number of placements in the heap
+	 * @return	count
+	 */
+	private static int sort(long[] best, int count) {
+		Arrays.sort(best, 0, count);
+		for(int i = 0; i < count/2; i++) {
+			long tmp = best[i];
+			best[i] = best[count-1-i];
+			best[count-1-i] = tmp;
+		}
+		return count;
+	}
+
+	/**
+	 * Adds a key at the bottom of a heap with the lowest key on top, and moves it up to its place.
+	 * @param	heap	keys of the heap
+	 * @param	i	number of keys in the heap before this one
+	 * @param	key	key to add
+	 */
+	private static void up(long[] heap, int i, long key) {
+		while(i > 0 && heap[(i-1)/2] > key) {
+			heap[i] = heap[(i-1)/2];
+			i = (i-1)/2;
+		}
+		heap[i] = key;
+	}
+
+	/**
+	 * Moves the top key of a heap down to its place.
+	 * @param	heap	keys of the heap
+	 * @param	count	number of keys in the heap
+	 */
+	private static void down(long[] heap, int count) {
+		long key = heap[0];
+		int i = 0;
+		while(2*i+1 < count) {
+			int child = 2*i+1;
+			if(child+1 < count && heap[child+1] < heap[child]) child++;
+			if(heap[child] >= key) break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = key;
+	}
+}
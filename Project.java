@@ -1,4 +1,5 @@
 import java.io.*;
+import java.util.Random;
 
 /**
  * The main class which contains the method main().
@@ -9,30 +10,19 @@ import java.io.*;
  */
 public class Project {
 	private static char mode = 'a';
-	private static Grid grid;
-	private static WordsList list;
-	private static Game game;
 	private static boolean interactive;
-	private static int gridSize;
-	private static String filename;
-
-	/**
-	 * Initialize by creating a WordList object, a Grid object and a Game object.
-	 */
-	private static void init() {
-		list = new WordsList();
-		grid = new Grid();
-		game = new Game(grid, list);
-	}
-
-	/**
-	 * This loads the list of Words and the Grid by taking into account the params entered in the Terminal
-	 */
-	public static void load() {
-		list.load(); // Load words in WordsList from file
-		grid.setSize(gridSize > 0 ? gridSize : list.maxLength()); // Use given grid size, otherwise use longest word length in list
-		grid.init(); // Initialize grid with random numbers
-	}
+	private static boolean optimal;
+	private static boolean parallel;
+	private static boolean verbose;
+	private static boolean ansi; // Redraw only the changed cells in the Terminal
+	private static long games; // Number of games to simulate, 0 to play
+	private static String policy; // How simulated games choose their moves, and the moves of the command "play"
+	private static long millis; // Time given to each move by the mcts policy, 0 for a number of iterations
+	private static int width; // Width of the beam search used by -o, 0 for the exact search
+	private static String results = "results.csv"; // File the results of simulated games are written to
+	private static int port = -1; // Port to serve remote players on, -1 to play locally
+	private static boolean network; // Serve players of other machines too, not only through the loopback address
+	private static String script; // File of commands to run without displaying anything, "-" for the standard input
 
 	/**
 	 * This asks whether the player wants to play with the graphic interface or the Terminal
@@ -54,59 +44,226 @@ public class Project {
 		+ "\tFILE\tlist of words to use\n"
 		+ "\t-h\tdisplay this help and exit\n"
 		+ "\t-i\tinteractive mode: do not start graphical interface\n"
-		+ "\t-s\tset grid size";
+		+ "\t-a\tin the Terminal, draw the grid once and then only the changed cells, with ANSI escape codes\n"
+		+ "\t-o\tprint the best possible score and the moves to reach it, then exit\n"
+		+ "\t-p\twith -o, search on all processors\n"
+		+ "\t-w\twith -o, use a beam search of the given width: a good score quickly instead of the best one\n"
+		+ "\t-s\tset grid size\n"
+		+ "\t-v\tprint statistics about loading the list of words\n"
+		+ "\t-g\tsimulate the given number of games without any player, print statistics and exit\n"
+		+ "\t-m\twith -g, how moves are chosen: random (default), greedy or mcts\n"
+		+ "\t\tin the Terminal, the command play plays the move chosen this way (default: mcts, greedy with -l or -b)\n"
+		+ "\t-t\twith -m mcts, milliseconds of search for each move, instead of 2000 iterations\n"
+		+ "\t-r\twith -g, file to write the result of each game to (default: results.csv)\n"
+		+ "\t-l\tserve remote players on the given TCP port (0 for any free port) of the loopback address instead of playing\n"
+		+ "\t-n\twith -l, listen on every network interface, so that players of other machines can connect\n"
+		+ "\t-b\trun the commands of the given file (- for the standard input), print a summary and exit";
 		System.err.println(tmp);
 		System.exit(1);
 	}
 
 	/**
 	 * This handles the params written when we write in the Terminal "java Project params".
+	 * @param	args	array of command-line arguments
+	 * @return	session playing with the given file and grid size, not loaded yet
 	 */
-	private static void parseArgs(String[] args) {
-		boolean getSizeArg = false;
+	private static Session parseArgs(String[] args) {
+		String option = null; // Option waiting for its parameter
+		String filename = null;
+		int gridSize = 0;
 		boolean gotFilename = false;
 		for(String arg: args) {
-			if(arg.equals("-h")) // Show help
-				usage();
-			else if(arg.equals("-i")) // Run in non-graphical mode
-				interactive = true;
-			else if(arg.equals("-s")) // Set grid size
-				getSizeArg = true;
-			else if(getSizeArg) {
+			if(option != null) { // Get the parameter of the previous option
 				try {
-					gridSize = Integer.parseInt(arg); // Get grid size parameter
+					switch(option) {
+						case "-s":
+							gridSize = Integer.parseInt(arg); // Get grid size parameter
+							break;
+						case "-g":
+							games = Long.parseLong(arg); // Get number of games
+							break;
+						case "-m":
+							policy = arg;
+							break;
+						case "-t":
+							millis = Long.parseLong(arg); // Get time per move
+							break;
+						case "-w":
+							width = Integer.parseInt(arg); // Get beam width
+							break;
+						case "-r":
+							results = arg;
+							break;
+						case "-l":
+							port = Integer.parseInt(arg); // Get port to listen on
+							break;
+						case "-b":
+							script = arg;
+							break;
+					}
 				}
 				catch (NumberFormatException e) { // Invalid parameter
 					usage();
 				}
-				getSizeArg = false;
+				option = null;
 			}
+			else if(arg.equals("-h")) // Show help
+				usage();
+			else if(arg.equals("-i")) // Run in non-graphical mode
+				interactive = true;
+			else if(arg.equals("-o")) // Solve the grid instead of playing
+				optimal = true;
+			else if(arg.equals("-p")) // Solve with several threads
+				parallel = true;
+			else if(arg.equals("-v")) // Print loading statistics
+				verbose = true;
+			else if(arg.equals("-a")) // Use ANSI escape codes in the Terminal
+				ansi = true;
+			else if(arg.equals("-n")) // Listen on every interface
+				network = true;
+			else if(arg.equals("-s") || arg.equals("-g") || arg.equals("-m") || arg.equals("-t") || arg.equals("-w") || arg.equals("-r") || arg.equals("-l") || arg.equals("-b")) // Options followed by a parameter
+				option = arg;
 			else if(!gotFilename) { // Get filename
 				filename = arg;
 				gotFilename = true;
 			}
 			else usage(); // Invalid argument
 		}
+		if(option != null) usage(); // Missing parameter
+		return new Session(filename, gridSize);
+	}
+
+	/**
+	 * Returns the move policy chosen with -m and -t.
+	 * @param	name	name of the policy
+	 * @param	threads	number of threads a tree search may use for each move
+	 * @return	the policy
+	 */
+	private static MovePolicy policy(String name, int threads) {
+		if(name.equals("mcts") && (millis > 0 || threads > 1)) return millis > 0 ? new MctsPlayer(threads, millis, 0, 16) : new MctsPlayer(threads, 0, 2000, 16);
+		MovePolicy moves = MovePolicy.byName(name);
+		if(moves == null) usage(); // Unknown policy
+		return moves;
 	}
 
 	/**
 	 * This starts the graphical interface.
+	 * @param	session	session to play
 	 */
-	private static void startGui() {
-		Window win = new Window(grid, list, game);
-		game.setEnd(win.end); // Bind end function with graphical one
+	private static void startGui(Session session) {
+		Window win = new Window(session);
+		session.getGame().setEnd(win.end); // Bind end function with graphical one
 	}
 
 	/**
 	 * This starts the game with the Terminal.
+	 * @param	session	session to play
 	 */
-	private static void startTerm() {
-		Terminal ter = new Terminal(game);
+	private static void startTerm(Session session) {
+		if(ansi) {
+			startAnsi(session);
+			return;
+		}
+		Terminal ter = new Terminal(session.getGame());
+		ter.setPolicy(policy(policy == null ? "mcts" : policy, Runtime.getRuntime().availableProcessors()));
+		Game game = session.getGame();
 		game.setEnd(Terminal::end); // Bind end function with non-graphical one
+		long scored = ~game.getStateKey(); // State of the game the score was last printed for, none yet
+		while(true) {
+			System.out.println(session.getGrid());
+			System.out.println(session.getList());
+			if(game.getStateKey() != scored) { // Only after a command changed the game, not after a mistake
+				ter.printScore();
+				scored = game.getStateKey();
+			}
+			ter.setWordTerminal();
+		}
+	}
+
+	/**
+	 * This starts the game with the Terminal, drawing the grid once and then only the cells changed by each command.
+	 * @param	session	session to play
+	 */
+	private static void startAnsi(Session session) {
+		Game game = session.getGame();
+		AnsiRenderer renderer = new AnsiRenderer(session.getGrid(), session.getList(), System.out);
+		Terminal ter = new Terminal(game, renderer.getStatus()); // Messages are shown below the words list
+		ter.setPolicy(policy(policy == null ? "mcts" : policy, Runtime.getRuntime().availableProcessors()));
+		game.setOutput(renderer.getStatus());
+		game.setEnd(() -> {
+			renderer.update(); // Show the last word before exiting
+			Terminal.end();
+		});
+		ter.printScore();
+		renderer.draw();
 		while(true) {
-			System.out.println(grid);
-			System.out.println(list);
 			ter.setWordTerminal();
+			ter.printScore(); // The messages are cleared at each update, so the score is printed again each time
+			renderer.update();
+		}
+	}
+
+	/**
+	 * This searches the best possible score for the loaded grid and words, and prints it with the moves to reach it.
+	 * @param	session	session to solve
+	 */
+	private static void solve(Session session) {
+		System.out.println(session.getGrid());
+		System.out.println(session.getList());
+		if(width > 0) {
+			BeamSearch beam = new BeamSearch(session.getGrid(), session.getList(), width, parallel ? Runtime.getRuntime().availableProcessors() : 1);
+			System.out.println("Score found: " + beam.search());
+			for(Move move: beam.getBestMoves()) System.out.println(move); // Same syntax as the commands typed in the Terminal
+			System.out.println(beam.getStatistics());
+			return;
+		}
+		Solver solver = new Solver(session.getGrid(), session.getList());
+		int best = parallel ? solver.solveParallel(Runtime.getRuntime().availableProcessors()) : solver.solve();
+		System.out.println("Best score: " + best);
+		for(String move: solver.getBestMoves()) System.out.println(move); // Same syntax as the commands typed in the Terminal
+		System.out.println(solver.getNodes() + " nodes searched (" + solver.getNodesPerSecond() + " nodes/s)");
+	}
+
+	/**
+	 * This plays many games without any player, writes their results and prints statistics about their scores.
+	 * @param	session	session holding the words to play with and the size of the grids
+	 */
+	private static void simulate(Session session) throws IOException {
+		MovePolicy moves = policy(policy == null ? "random" : policy, 1); // Games are already played in parallel
+		Simulation simulation = new Simulation(session.getList(), session.getGrid().getGrid().length, moves, new Random().nextLong());
+		try(Writer writer = new BufferedWriter(new FileWriter(results))) {
+			simulation.run(games, Runtime.getRuntime().availableProcessors(), writer);
+		}
+		System.out.println(simulation.getStatistics());
+		if(moves instanceof MctsPlayer) System.out.println(((MctsPlayer) moves).getStatistics());
+	}
+
+	/**
+	 * This serves remote players until the program is killed, each one with a copy of the words of the session.
+	 * @param	session	session holding the words to play with and the size of the grids
+	 */
+	private static void serve(Session session) throws IOException {
+		Server server = new Server(session.getList(), session.getGrid().getGrid().length, policy(policy == null ? "greedy" : policy, 1)); // Cheap moves by default, shared by many players
+		System.out.println("Listening on port " + (network ? server.start(null, port) : server.start(port)) + " of " + server.getAddress().getHostAddress());
+	}
+
+	/**
+	 * This runs the commands of a file or of the standard input, then prints a summary instead of the grid after each one.
+	 * @param	session	session to play
+	 */
+	private static void batch(Session session) {
+		Game game = session.getGame();
+		game.setOutput(null); // The summary tells whether the game is over
+		game.setEnd(() -> {});
+		Terminal ter = new Terminal(game);
+		ter.setPolicy(policy(policy == null ? "greedy" : policy, Runtime.getRuntime().availableProcessors())); // Same moves each time the same commands are run on the same grid, unlike a tree search
+		try(BufferedReader in = script.equals("-") ? new BufferedReader(new InputStreamReader(System.in), 1 << 16)
+			: new BufferedReader(new FileReader(script), 1 << 16)) {
+			System.out.println(ter.batch(in));
+		}
+		catch(IOException e) {
+			System.err.println("Cannot read " + script + ": " + e.getMessage());
+			System.exit(2);
 		}
 	}
 
@@ -115,19 +272,22 @@ public class Project {
 	 * @param	args	array of command-line arguments
 	 */
 	public static void main(String[] args) throws IOException {
-		init();
-		parseArgs(args);
-		list.setFilename(filename);
-		load();
-		if(interactive) startTerm();
+		Session session = parseArgs(args);
+		session.load();
+		if(verbose) System.err.println(session.getList().getLoadStatistics());
+		if(port >= 0) serve(session);
+		else if(script != null) batch(session);
+		else if(games > 0) simulate(session);
+		else if(optimal) solve(session);
+		else if(interactive) startTerm(session);
 		else {
 			askMode();
 			switch(mode) {
 				case 'm':
-					startGui();
+					startGui(session);
 					break;
 				case 'k':
-					startTerm();
+					startTerm(session);
 					break;
 		}
 		}
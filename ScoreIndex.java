@@ -0,0 +1,96 @@
+/**
+ * This class gives the score of any segment of a line or a column of the grid in logarithmic time.
+ *
+ * It keeps one Fenwick tree (binary indexed tree) per line and per column over the values of the cells.
+ * An empty cell is worth its digit, an occupied cell is worth 0.
+ * The sum of a segment is the difference of two prefix sums, each one reading at most log2(size) entries.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class ScoreIndex {
+	private int[][] lines; // Fenwick tree of each line, indexed from 1
+	private int[][] cols; // Fenwick tree of each column, indexed from 1
+
+	/**
+	 * Creates a new ScoreIndex object from the content of a grid.
+	 * @param	grid	grid to index, every digit counts for its value and any other character for 0
+	 */
+	public ScoreIndex(char[][] grid) {
+		int size = grid.length;
+		this.lines = new int[size][size+1];
+		this.cols = new int[size][size+1];
+		for(int i = 0; i < size; i++) {
+			for(int j = 0; j < size; j++) {
+				int value = Math.max(Grid.digit(grid[i][j]), 0);
+				lines[i][j+1] = value;
+				cols[j][i+1] = value;
+			}
+		}
+		for(int i = 0; i < size; i++) { // Turn the plain values into Fenwick trees in linear time
+			build(lines[i]);
+			build(cols[i]);
+		}
+	}
+
+	/**
+	 * Builds a Fenwick tree in place from plain values, each node adding itself to its parent.
+	 * @param	tree	values indexed from 1, replaced by the tree
+	 */
+	private static void build(int[] tree) {
+		for(int i = 1; i < tree.length; i++) {
+			int parent = i + (i & -i);
+			if(parent < tree.length) tree[parent] += tree[i];
+		}
+	}
+
+	/**
+	 * Adds a value to one position of a Fenwick tree.
+	 * @param	tree	Fenwick tree to update
+	 * @param	i	position, indexed from 0
+	 * @param	delta	value to add
+	 */
+	private static void add(int[] tree, int i, int delta) {
+		for(i++; i < tree.length; i += i & -i) tree[i] += delta;
+	}
+
+	/**
+	 * Returns the sum of the first positions of a Fenwick tree.
+	 * @param	tree	Fenwick tree to read
+	 * @param	n	number of positions to sum
+	 * @return	sum of positions 0 to n-1
+	 */
+	private static int prefix(int[] tree, int n) {
+		int sum = 0;
+		for(; n > 0; n -= n & -n) sum += tree[n];
+		return sum;
+	}
+
+	/**
+	 * Changes the value of a cell.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @param	delta	value to add to the cell
+	 */
+	public void add(int l, int c, int delta) {
+		add(lines[l], c, delta);
+		add(cols[c], l, delta);
+	}
+
+	/**
+	 * Returns the sum of the values of a segment of a line or a column.
+	 *
+	 * Coordinates must already be valid: the segment has to be entirely inside the grid.
+	 * @param	length	length of the segment
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, sums the cells vertically, otherwise sums them horizontally
+	 * @return	sum of the values of the cells
+	 */
+	public int sum(int length, int l, int c, boolean v) {
+		int[] tree = v ? cols[c] : lines[l];
+		int from = v ? l : c;
+		return prefix(tree, from + length) - prefix(tree, from);
+	}
+}
@@ -0,0 +1,199 @@
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.Set;
+
+/**
+ * This class lets remote players play through a TCP connection, with the same commands as the Terminal.
+ *
+ * Each connection gets its own Session, copying a list of words loaded once for all players.
+ * The grid and the remaining words are sent when the connection opens and after each command, followed by an empty line.
+ * Besides the commands of the Terminal, "stats" gives the latency percentiles of the commands of all players, and "quit" closes the connection.
+ * Every connection is served by its own thread, mostly waiting for the next line, so threads are cheap ones when the JVM has them.
+ * The server only listens on the loopback address unless it is given another one, so that other machines cannot connect by mistake.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Server {
+	private WordsList words; // Loaded once, copied by each session
+	private int gridSize;
+	private MovePolicy policy; // Chooses the move of the command "play" for every player
+	private ServerSocket socket;
+	private ExecutorService clients; // Thread of each connection
+	private Latency latency = new Latency(); // Time taken by each command, from reading it to sending the answer
+	private Set<Socket> connections = ConcurrentHashMap.newKeySet(); // Connections currently open
+
+	/**
+	 * Creates a new Server object. Nothing is opened before start() is called.
+	 * @param	words	loaded list of words, never modified
+	 * @param	gridSize	size of the grid of each player
+	 * @param	policy	chooses the move of the command "play", shared by all connections, or null to refuse the command
+	 */
+	public Server(WordsList words, int gridSize, MovePolicy policy) {
+		this.words = words;
+		this.gridSize = gridSize;
+		this.policy = policy;
+	}
+
+	/**
+	 * Returns an executor with one virtual thread per task if the JVM has them (Java 21 and later).
+	 * Otherwise, a pool of ordinary threads with small stacks, created when needed.
+	 * @return	executor to run each connection on
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(ReflectiveOperationException e) { // Older JVM, or virtual threads not enabled
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(null, task, "client", 1 << 18); // A connection never needs a deep stack
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Listens on the given port of the loopback address, so only for players on the same machine, and starts accepting connections in a new thread.
+	 * @param	port	port to listen on, 0 for any free port
+	 * @return	port listened on
+	 * @throws	IOException	if the port cannot be opened
+	 */
+	public int start(int port) throws IOException {
+		return this.start(InetAddress.getLoopbackAddress(), port);
+	}
+
+	/**
+	 * Listens on the given address and port and starts accepting connections in a new thread.
+	 * @param	address	address to listen on, null for every address of the machine
+	 * @param	port	port to listen on, 0 for any free port
+	 * @return	port listened on
+	 * @throws	IOException	if the port cannot be opened
+	 */
+	public int start(InetAddress address, int port) throws IOException {
+		socket = new ServerSocket();
+		socket.bind(new InetSocketAddress(address, port), 1 << 12); // Long queue, so that many players can connect at once
+		clients = newExecutor();
+		new Thread(this::accept, "server").start();
+		return socket.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the server is closed.
+	 */
+	private void accept() {
+		while(!socket.isClosed()) {
+			try {
+				Socket client = socket.accept();
+				clients.execute(() -> serve(client));
+			}
+			catch(IOException e) { // Closed, or no file descriptor left until a connection is closed
+				if(!socket.isClosed()) {
+					System.err.println("Cannot accept connection: " + e.getMessage());
+					try {
+						Thread.sleep(100);
+					}
+					catch(InterruptedException f) {
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Plays a game with a single connection until the game ends or the connection is closed.
+	 * @param	client	connection of the player
+	 */
+	private void serve(Socket client) {
+		connections.add(client);
+		try(client;
+			BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8), 1 << 10); // Commands are short, and most connections are idle
+			PrintStream out = new PrintStream(new BufferedOutputStream(client.getOutputStream()), false, "UTF-8")) {
+			Session session = new Session(words, gridSize);
+			session.load();
+			boolean[] ended = {false};
+			Game game = session.getGame();
+			game.setOutput(out);
+			game.setEnd(() -> ended[0] = true);
+			Terminal terminal = new Terminal(game, out);
+			terminal.setPolicy(policy);
+			show(session, out);
+			String command;
+			while(!ended[0] && (command = in.readLine()) != null) {
+				long start = System.nanoTime();
+				if(command.trim().equals("quit")) break;
+				if(command.trim().equals("stats")) out.println(this.getStatistics());
+				else {
+					terminal.execute(command);
+					if(ended[0]) out.println("End");
+					else show(session, out);
+				}
+				out.flush();
+				latency.record(System.nanoTime() - start);
+			}
+		}
+		catch(IOException e) { // Connection lost, nothing to do
+		}
+		finally {
+			connections.remove(client);
+		}
+	}
+
+	/**
+	 * Sends the grid and the remaining words, like the Terminal shows them, and flushes them.
+	 * @param	session	session of the player
+	 * @param	out	connection of the player
+	 */
+	private static void show(Session session, PrintStream out) {
+		out.print(session.getGrid()); // Already ends with a line break
+		out.println(session.getList());
+		out.println();
+		out.flush();
+	}
+
+	/**
+	 * Returns the address the server listens on.
+	 * @return	address given to start(), or the wildcard address
+	 */
+	public InetAddress getAddress() {
+		return socket.getInetAddress();
+	}
+
+	/**
+	 * Returns the number of connections currently open.
+	 * @return	number of connections
+	 */
+	public int getConnections() {
+		return connections.size();
+	}
+
+	/**
+	 * Returns the latency percentiles of the commands since the server started.
+	 * @return	latency of the commands
+	 */
+	public Latency getLatency() {
+		return this.latency;
+	}
+
+	/**
+	 * Returns the number of open connections and the latency percentiles of the commands.
+	 * @return	statistics about the server
+	 */
+	public String getStatistics() {
+		return connections.size() + " connections, " + latency;
+	}
+
+	/**
+	 * Stops accepting connections and closes the open ones.
+	 * @throws	IOException	if the port cannot be closed
+	 */
+	public void close() throws IOException {
+		socket.close();
+		for(Socket client: connections) client.close(); // Threads waiting for a line get an error and stop
+		clients.shutdownNow();
+	}
+}
@@ -0,0 +1,135 @@
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class checks that Server plays games through real connections, on any free port of the loopback address.
+ *
+ * A player connects, places a word, makes mistakes, undoes, lets the policy play, asks for the statistics and quits.
+ * Each answer is read up to the empty line ending the grid and the remaining words, and compared with what the command should do.
+ * A second player connected at the same time must get their own game, and the latency of every command must be counted.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class ServerTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private ServerTest() {
+	}
+
+	/**
+	 * Reads the lines sent after a command, up to the empty line ending the words left.
+	 * @param	in	connection of the player
+	 * @return	the lines, without the empty one, or null if the connection was closed first
+	 * @throws	IOException	if the connection fails or takes too long to answer
+	 */
+	private static List<String> answer(BufferedReader in) throws IOException {
+		List<String> lines = new ArrayList<>();
+		String line;
+		while((line = in.readLine()) != null && !line.isEmpty()) lines.add(line);
+		return line == null ? null : lines;
+	}
+
+	/**
+	 * Sends a command and reads its answer.
+	 * @param	out	connection of the player
+	 * @param	in	connection of the player
+	 * @param	command	command to send
+	 * @return	the lines of the answer, or null if the connection was closed
+	 * @throws	IOException	if the connection fails or takes too long to answer
+	 */
+	private static List<String> send(PrintWriter out, BufferedReader in, String command) throws IOException {
+		out.println(command);
+		out.flush();
+		return answer(in);
+	}
+
+	/**
+	 * Returns the last line of an answer, the remaining words.
+	 * @param	lines	the answer
+	 * @return	the remaining words
+	 */
+	private static String words(List<String> lines) {
+		return lines.get(lines.size() - 1);
+	}
+
+	/**
+	 * Starts a server on any free port and plays a game through two connections.
+	 * @throws	Exception	if a connection fails or the thread was interrupted
+	 */
+	private static void play() throws Exception {
+		WordsList words = Check.words("ab\ncd\nxyz\n");
+		Server server = new Server(words, 4, MovePolicy.byName("greedy"));
+		int port = server.start(0);
+		try {
+			connect(server, port);
+		}
+		finally {
+			server.close(); // Otherwise the thread accepting connections keeps the JVM running after a failed check
+		}
+	}
+
+	/**
+	 * Plays through two connections to a started server.
+	 * @param	server	server to play with
+	 * @param	port	port it listens on
+	 * @throws	Exception	if a connection fails or the thread was interrupted
+	 */
+	private static void connect(Server server, int port) throws Exception {
+		Check.that(port > 0, "no port given");
+		Check.that(server.getAddress().isLoopbackAddress(), "listening on " + server.getAddress() + " instead of the loopback address");
+		try(Socket first = new Socket(InetAddress.getLoopbackAddress(), port);
+			Socket second = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			first.setSoTimeout(10_000); // Fail instead of waiting forever for an answer
+			second.setSoTimeout(10_000);
+			BufferedReader in = new BufferedReader(new InputStreamReader(first.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(first.getOutputStream(), StandardCharsets.UTF_8));
+			BufferedReader otherIn = new BufferedReader(new InputStreamReader(second.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter otherOut = new PrintWriter(new OutputStreamWriter(second.getOutputStream(), StandardCharsets.UTF_8));
+
+			List<String> lines = answer(in);
+			Check.that(lines != null && lines.size() == 10, "first screen: " + lines); // 4 lines between 5 borders, then the words
+			Check.that(words(lines).equals("(0)ab, (1)cd, (2)xyz, "), "words at the start: " + words(lines));
+			Check.that(words(answer(otherIn)).equals("(0)ab, (1)cd, (2)xyz, "), "words of the second player at the start");
+
+			lines = send(out, in, "0h(0,0)");
+			Check.that(lines.get(1).startsWith("| a | b |") && words(lines).equals("(1)cd, (2)xyz, "), "after placing a word: " + lines);
+			lines = send(out, in, " 0h(1,0) ");
+			Check.that(lines.get(0).equals("Wrong placement") && words(lines).equals("(1)cd, (2)xyz, "), "after placing a word already placed: " + lines);
+			lines = send(out, in, "0h(0,");
+			Check.that(lines.get(0).equals("Error in command line"), "after an invalid command: " + lines);
+			lines = send(out, in, "undo");
+			Check.that(!lines.get(1).contains("a") && words(lines).equals("(0)ab, (1)cd, (2)xyz, "), "after undo: " + lines);
+			lines = send(out, in, "play");
+			Check.that(lines.get(0).startsWith("Played ") && words(lines).startsWith("(") && !words(lines).equals("(0)ab, (1)cd, (2)xyz, "), "after play: " + lines);
+
+			lines = send(otherOut, otherIn, "1v(0,3)"); // The other game did not change
+			Check.that(words(lines).equals("(0)ab, (2)xyz, "), "second player after placing a word: " + lines);
+
+			out.println("stats");
+			out.flush();
+			String stats = in.readLine();
+			Check.that(stats.startsWith("2 connections, 6 commands, latency in us: p50 "), "statistics: " + stats);
+			Check.that(send(out, in, "quit") == null, "connection still open after quit");
+		}
+		for(int wait = 0; wait < 1000 && server.getConnections() > 0; wait++) Thread.sleep(10); // The server notices the connections closed
+		Check.that(server.getConnections() == 0, server.getConnections() + " connections still open");
+		Check.that(server.getLatency().count() == 7, "latency of " + server.getLatency().count() + " commands instead of 7");
+		Check.that(server.getLatency().percentile(1) > 0, "latency not measured");
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 * @throws	Exception	if a connection fails or the thread was interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		play();
+		Check.done("ServerTest");
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * This class holds everything a single player needs: a Grid, a WordsList and the Game linking them.
+ *
+ * Nothing is static, so a program can run as many sessions as it wants side by side.
+ * A session either reads its words from a file, or copies a list loaded once for all sessions, sharing its memory.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Session {
+	private Grid grid;
+	private WordsList list;
+	private Game game;
+	private int gridSize; // 0 to use the length of the longest word
+	private String filename; // File the words are read from, if there is no list to copy
+	private WordsList words; // Loaded list copied at each start, or null
+
+	/**
+	 * Creates a new Session object reading its words from a file. Nothing is loaded before load() is called.
+	 * @param	filename	read words from this file, null for the default one
+	 * @param	gridSize	size of the grid, 0 to use the length of the longest word
+	 */
+	public Session(String filename, int gridSize) {
+		this.filename = filename;
+		this.gridSize = gridSize;
+		this.list = new WordsList();
+		this.grid = new Grid();
+		this.game = new Game(grid, list);
+	}
+
+	/**
+	 * Creates a new Session object playing with a copy of an already loaded list. Nothing is loaded before load() is called.
+	 * @param	words	loaded list, never modified
+	 * @param	gridSize	size of the grid, 0 to use the length of the longest word
+	 */
+	public Session(WordsList words, int gridSize) {
+		this((String) null, gridSize);
+		this.words = words;
+	}
+
+	/**
+	 * Starts a new game: loads the words, fills the grid with new random numbers and forgets the previous moves.
+	 */
+	public void load() {
+		if(words != null) list.copyFrom(words); // Gets all words back without reading the file
+		else {
+			list.setFilename(filename);
+			list.load(); // Load words in WordsList from file
+		}
+		grid.setSize(gridSize > 0 ? gridSize : list.maxLength()); // Use given grid size, otherwise use longest word length in list
+		grid.init(); // Initialize grid with random numbers
+		game.reset();
+	}
+
+	/**
+	 * Returns the grid of this session.
+	 * @return	the grid
+	 */
+	public Grid getGrid() {
+		return this.grid;
+	}
+
+	/**
+	 * Returns the words list of this session.
+	 * @return	the words list
+	 */
+	public WordsList getList() {
+		return this.list;
+	}
+
+	/**
+	 * Returns the game of this session.
+	 * @return	the game
+	 */
+	public Game getGame() {
+		return this.game;
+	}
+}
@@ -0,0 +1,192 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is a grid on which several players place words at the same time, from different threads.
+ *
+ * Each cell is an int of an AtomicIntegerArray packing its character, the player who owns it, and whether the word claiming it is not finished yet.
+ * A word is placed by claiming its cells one by one with compareAndSet, always in increasing order of cell, then writing its letters.
+ * A cell claimed by a word not finished yet is waited for, since that word may still give it back,
+ * spinning a few times, then yielding, then parking for growing delays so that a waiting thread does not take the processor from the one it waits for;
+ * if a cell is really owned, the cells claimed so far are given back and the word is not placed.
+ * Words that do not overlap never wait for each other. A word only waits for cells after the ones it claimed, so two words never wait for each other.
+ * Among words overlapping each other, the one claiming the first shared cell goes first, and the others wait to see whether it is placed:
+ * a word fitting on the grid is never refused because of a word that was refused.
+ * Each player has their own score.
+ * As on a Grid, a digit in a word leaves its cell empty, worth that digit, so that another word can still cover it.
+ *
+ * The letters of a word are written one by one, so get() may show part of a word being written; snapshot() only shows whole words.
+ *
+ * This is a prototype: only Benchmark and SharedGridTest use it. Session, Simulation and Server give each game its own Grid,
+ * which is not thread-safe, and no play mode lets several players share a grid yet.
+ * Unlike a Grid, it keeps no history to undo, no Zobrist keys and none of the indexes the solvers need.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class SharedGrid {
+	private static final int CHAR = 0xFFFF; // Bits of the character
+	private static final int PENDING = 1 << 16; // Set while the word owning the cell is being placed
+	private static final int OWNER = 17; // Owner is stored from this bit: 0 for an empty cell, player+1 otherwise
+	private static final int NOBODY = 0x7FFF; // Owner of the letters already on the grid it was created from
+	private static final int SPINS = 64; // Waits spent spinning, then as many yielding, before parking
+	private static final int MAX_PARK = 10; // Parking lasts at most 1 << MAX_PARK microseconds
+
+	private AtomicIntegerArray cells;
+	private int[] initial; // Content the grid was created with, for reset()
+	private int size;
+	private AtomicIntegerArray scores; // Score of each player
+	private AtomicLong writing = new AtomicLong(); // Number of words that began writing their letters
+	private AtomicLong written = new AtomicLong(); // Number of words that finished writing their letters
+
+	/**
+	 * Creates a new SharedGrid object with the same content as a grid. Letters already there belong to nobody.
+	 * @param	grid	grid to copy
+	 * @param	players	number of players
+	 */
+	public SharedGrid(Grid grid, int players) {
+		char[][] content = grid.getGrid();
+		this.size = content.length;
+		this.initial = new int[size*size];
+		for(int l = 0; l < size; l++) {
+			for(int c = 0; c < size; c++) {
+				initial[l*size + c] = Grid.digit(content[l][c]) >= 0 ? content[l][c] : NOBODY << OWNER | content[l][c];
+			}
+		}
+		this.cells = new AtomicIntegerArray(initial);
+		this.scores = new AtomicIntegerArray(players);
+	}
+
+	/**
+	 * Tries to place a word for a player, and adds the digits it covers to their score.
+	 *
+	 * Can be called from any number of threads at the same time.
+	 * @param	player	number of the player, from 0
+	 * @param	word	word to place
+	 * @param	l	line to begin at
+	 * @param	c	column to begin at
+	 * @param	v	if true, places the word vertically, otherwise places it horizontally
+	 * @return	score of the word, or -1 if it does not fit or if another word got one of its cells first
+	 */
+	public int place(int player, CharSequence word, int l, int c, boolean v) {
+		int length = word.length();
+		if(l < 0 || c < 0 || length > size - (v ? l : c) || (v ? c : l) >= size) return -1; // Out of the grid
+		int step = v ? size : 1; // Cells of the word, in increasing order
+		int first = l*size + c;
+		int claim = (player+1) << OWNER | PENDING;
+		int score = 0;
+		for(int i = 0; i < length; i++) {
+			int cell = first + i*step;
+			int old;
+			for(int attempt = 0; ((old = cells.get(cell)) & PENDING) != 0; attempt++) backoff(attempt); // Claimed by a word not finished yet, wait until it is placed or given back
+			if(old >>> OWNER != 0 || !cells.compareAndSet(cell, old, claim | old)) { // Owned, or taken since it was read
+				for(int j = i-1; j >= 0; j--) cells.set(first + j*step, cells.get(first + j*step) & CHAR); // Give back the cells claimed, with their digit
+				return -1;
+			}
+			score += Grid.digit((char) old); // Neither owned nor pending, only the digit is left
+		}
+		writing.incrementAndGet();
+		for(int i = 0; i < length; i++) { // All cells are ours, write the letters
+			char ch = word.charAt(i);
+			cells.set(first + i*step, Grid.digit(ch) >= 0 ? ch : (player+1) << OWNER | ch); // A digit leaves the cell empty
+		}
+		written.incrementAndGet();
+		scores.addAndGet(player, score);
+		return score;
+	}
+
+	/**
+	 * Waits a little before reading a cell again, longer after each attempt.
+	 * @param	attempt	number of times the cell was already read
+	 */
+	private static void backoff(int attempt) {
+		if(attempt < SPINS) Thread.onSpinWait();
+		else if(attempt < 2*SPINS) Thread.yield();
+		else LockSupport.parkNanos(1000L << Math.min(attempt - 2*SPINS, MAX_PARK));
+	}
+
+	/**
+	 * Returns the character in a cell. A cell being claimed by a word not finished yet still shows its digit.
+	 * The other cells of a word being written may already show their letters; see snapshot().
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @return	content of the cell
+	 */
+	public char get(int l, int c) {
+		return (char) (cells.get(l*size + c) & CHAR);
+	}
+
+	/**
+	 * Returns the content of the whole grid at a moment when no word was writing its letters, so that each word is either all there or not at all.
+	 * @return	content of the grid, one array per line
+	 */
+	public char[][] snapshot() {
+		char[][] content = new char[size][size];
+		for(int attempt = 0; ; attempt++) {
+			long done = written.get(); // Read first: a word counted here was counted in writing before
+			long begun = writing.get();
+			if(begun == done) { // No word is writing its letters
+				for(int l = 0; l < size; l++) {
+					for(int c = 0; c < size; c++) content[l][c] = get(l, c);
+				}
+				if(writing.get() == begun) return content; // And none began while the cells were read
+			}
+			backoff(attempt);
+		}
+	}
+
+	/**
+	 * Returns the player owning a cell.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @return	number of the player, -1 if the cell is empty, or -2 if its letter was there before
+	 */
+	public int getOwner(int l, int c) {
+		int owner = cells.get(l*size + c) >>> OWNER;
+		return owner == NOBODY ? -2 : owner - 1;
+	}
+
+	/**
+	 * Returns the score of a player.
+	 * @param	player	number of the player
+	 * @return	sum of the digits covered by the words of the player
+	 */
+	public int getScore(int player) {
+		return scores.get(player);
+	}
+
+	/**
+	 * Returns the number of players.
+	 * @return	number of players
+	 */
+	public int getPlayers() {
+		return scores.length();
+	}
+
+	/**
+	 * Returns the size of the grid.
+	 * @return	number of lines and columns
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Puts back the content the grid was created with, and sets every score to 0. Must not be called while words are being placed.
+	 */
+	public void reset() {
+		for(int i = 0; i < initial.length; i++) cells.set(i, initial[i]);
+		for(int i = 0; i < scores.length(); i++) scores.set(i, 0);
+	}
+
+	/**
+	 * Returns a string representation of the grid, with the same look as Grid.toString().
+	 * @return	a string representation of the grid
+	 */
+	@Override
+	public String toString() {
+		return Grid.toString(snapshot());
+	}
+}
@@ -0,0 +1,200 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class checks that SharedGrid places words from several threads as if they were placed one after another.
+ *
+ * Threads place random words at the same time, then the grid is compared with what they were told:
+ * each word placed is on the grid with its letters, owned by its player and counted in their score, no two of them share a cell,
+ * and each word refused overlaps a cell that is really owned, so that no word is refused because of a word that was refused.
+ * The last check is also run on two words claiming the same cells in a known order, which is when such a refusal could happen.
+ * Meanwhile another thread takes snapshots, which must each show every word placed either whole or not at all.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class SharedGridTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private SharedGridTest() {
+	}
+
+	/**
+	 * A word a player tried to place, and the score they were told.
+	 */
+	private static class Attempt {
+		int player;
+		String word;
+		int l, c;
+		boolean v;
+		int score;
+
+		Attempt(int player, String word, int l, int c, boolean v, int score) {
+			this.player = player;
+			this.word = word;
+			this.l = l;
+			this.c = c;
+			this.v = v;
+			this.score = score;
+		}
+	}
+
+	/**
+	 * Checks one player at a time, where the result of each word is known in advance.
+	 */
+	private static void alone() {
+		Grid grid = Check.grid(6, new Random(0));
+		grid.place("zz", 5, 0, false); // Letters owned by nobody
+		char[][] cells = grid.getGrid();
+		SharedGrid shared = new SharedGrid(grid, 2);
+		Check.that(shared.getSize() == 6 && shared.getPlayers() == 2, "size or players");
+		Check.that(shared.toString().equals(grid.toString()), "content differs from the grid copied");
+		Check.that(shared.getOwner(5, 0) == -2 && shared.getOwner(0, 0) == -1, "owners of the cells copied");
+
+		int score = grid.scoreOf(3, 0, 0, false);
+		Check.that(shared.place(0, "abc", 0, 0, false) == score, "place on empty cells");
+		Check.that(shared.get(0, 1) == 'b' && shared.getOwner(0, 1) == 0 && shared.getScore(0) == score, "word placed");
+		Check.that(shared.place(1, "de", 0, 2, true) == -1, "place over a word");
+		Check.that(shared.place(1, "de", 4, 0, true) == -1, "place over a letter owned by nobody");
+		Check.that(shared.place(1, "de", 5, 5, false) == -1, "place out of the grid");
+		Check.that(shared.get(1, 2) == cells[1][2] && shared.getOwner(1, 2) == -1, "cell given back after a refused word");
+		Check.that(shared.place(1, "de", 1, 2, true) == grid.scoreOf(2, 1, 2, true) && shared.getScore(1) == grid.scoreOf(2, 1, 2, true), "place under a word");
+
+		shared.reset();
+		Check.that(shared.toString().equals(grid.toString()) && shared.getScore(0) == 0 && shared.getScore(1) == 0, "content after reset");
+
+		score = grid.scoreOf(3, 2, 0, false);
+		Check.that(shared.place(0, "a7b", 2, 0, false) == score && grid.place("a7b", 2, 0, false), "place a word with a digit");
+		Check.that(shared.toString().equals(grid.toString()) && shared.getOwner(2, 1) == -1 && shared.getOwner(2, 0) == 0, "digit of a word not left empty as on a Grid");
+		Check.that(shared.place(1, "c", 2, 1, true) == grid.scoreOf(1, 2, 1, true), "place over the digit of a word");
+	}
+
+	/**
+	 * Places random words from several threads at the same time, and checks the grid they end with.
+	 * @throws	Exception	if a thread was interrupted
+	 */
+	private static void concurrent() throws Exception {
+		int players = 4, size = 10;
+		Grid grid = Check.grid(size, new Random(1));
+		char[][] cells = grid.getGrid();
+		SharedGrid shared = new SharedGrid(grid, players);
+		ExecutorService pool = Executors.newFixedThreadPool(players+1);
+		try {
+			for(int round = 0; round < 1000; round++) {
+				shared.reset();
+				CyclicBarrier start = new CyclicBarrier(players+1);
+				Future<List<char[][]>> snapshots = pool.submit(() -> {
+					List<char[][]> taken = new ArrayList<>();
+					start.await();
+					for(int i = 0; i < 20; i++) taken.add(shared.snapshot());
+					return taken;
+				});
+				List<Future<List<Attempt>>> results = new ArrayList<>();
+				for(int p = 0; p < players; p++) {
+					int player = p;
+					Random rand = new Random(round*players + p);
+					results.add(pool.submit(() -> {
+						List<Attempt> attempts = new ArrayList<>();
+						start.await();
+						for(int i = 0; i < 40; i++) {
+							char[] word = new char[1 + rand.nextInt(5)];
+							Arrays.fill(word, (char) ('a' + player));
+							int l = rand.nextInt(size), c = rand.nextInt(size);
+							boolean v = rand.nextBoolean();
+							attempts.add(new Attempt(player, new String(word), l, c, v, shared.place(player, new String(word), l, c, v)));
+						}
+						return attempts;
+					}));
+				}
+
+				int[] owner = new int[size*size]; // Player of the word placed on each cell, plus 1
+				int[] scores = new int[players];
+				List<Attempt> refused = new ArrayList<>();
+				List<Attempt> placed = new ArrayList<>();
+				for(Future<List<Attempt>> result: results) {
+					for(Attempt a: result.get()) {
+						if(a.score < 0) {
+							refused.add(a);
+							continue;
+						}
+						placed.add(a);
+						int sum = 0;
+						for(int i = 0; i < a.word.length(); i++) {
+							int l = a.v ? a.l+i : a.l, c = a.v ? a.c : a.c+i;
+							Check.that(owner[l*size + c] == 0, "two words placed on cell (" + l + "," + c + ")");
+							owner[l*size + c] = a.player+1;
+							Check.that(shared.get(l, c) == a.word.charAt(i) && shared.getOwner(l, c) == a.player, "cell (" + l + "," + c + ") is not the word placed");
+							sum += Character.getNumericValue(cells[l][c]);
+						}
+						Check.that(a.score == sum, "score " + a.score + " instead of " + sum);
+						scores[a.player] += sum;
+					}
+				}
+				for(int p = 0; p < players; p++) Check.that(shared.getScore(p) == scores[p], "score of player " + p);
+				for(int l = 0; l < size; l++) {
+					for(int c = 0; c < size; c++) {
+						if(owner[l*size + c] == 0) Check.that(shared.get(l, c) == cells[l][c] && shared.getOwner(l, c) == -1, "cell (" + l + "," + c + ") kept by a refused word");
+					}
+				}
+				for(Attempt a: refused) {
+					boolean overlaps = a.l < 0 || a.c < 0 || (a.v ? a.l : a.c) + a.word.length() > size; // Out of the grid
+					for(int i = 0; i < a.word.length() && !overlaps; i++) overlaps = owner[(a.v ? a.l+i : a.l)*size + (a.v ? a.c : a.c+i)] != 0;
+					Check.that(overlaps, "word " + a.word + (a.v ? "v" : "h") + "(" + a.l + "," + a.c + ") refused without overlapping a word placed");
+				}
+				for(char[][] snapshot: snapshots.get()) {
+					int letters = 0;
+					for(char[] line: snapshot) for(char ch: line) if(Grid.digit(ch) < 0) letters++;
+					for(Attempt a: placed) {
+						int shown = 0;
+						for(int i = 0; i < a.word.length(); i++) if(snapshot[a.v ? a.l+i : a.l][a.v ? a.c : a.c+i] == a.word.charAt(i)) shown++;
+						Check.that(shown == 0 || shown == a.word.length(), "snapshot shows " + shown + " letters of " + a.word);
+						if(shown > 0) letters -= shown;
+					}
+					Check.that(letters == 0, "snapshot shows " + letters + " letters of no word placed");
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Races a word refused because of a letter after its first cells against a shorter word only claiming those first cells.
+	 * The shorter word must always be placed, whoever claims the shared cells first.
+	 * @throws	Exception	if a thread was interrupted
+	 */
+	private static void refusedFirst() throws Exception {
+		Grid grid = Check.grid(8, new Random(2));
+		grid.place("z", 0, 4, false);
+		SharedGrid shared = new SharedGrid(grid, 2);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			for(int round = 0; round < 5000; round++) {
+				shared.reset();
+				CyclicBarrier start = new CyclicBarrier(2);
+				Future<Integer> longer = pool.submit(() -> { start.await(); return shared.place(0, "abcde", 0, 0, false); });
+				Future<Integer> shorter = pool.submit(() -> { start.await(); return shared.place(1, "xy", 0, 1, false); });
+				Check.that(longer.get() < 0, "word placed over a letter");
+				Check.that(shorter.get() >= 0, "word refused because of a word that was refused, round " + round);
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 * @throws	Exception	if a thread was interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		alone();
+		concurrent();
+		refusedFirst();
+		Check.done("SharedGridTest");
+	}
+}
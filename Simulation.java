@@ -0,0 +1,152 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class plays many games without any player, to study the scores reached by a move policy.
+ *
+ * Each game gets its own Grid, filled from a random generator seeded with the number of the game, and its own copy of the words list.
+ * Games are shared between several threads, each one taking the next game number until all have been played.
+ * The result of each game is written as a line of CSV in the results file, in the order games finish.
+ * Nothing is read from the standard input and nothing is displayed, so this can run on a server.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Simulation {
+	private WordsList list; // Words every game starts with, never modified
+	private int gridSize;
+	private MovePolicy policy;
+	private long seed;
+
+	// Statistics of the last run, updated by each thread at the end
+	private long games;
+	private long scoreSum;
+	private int minScore;
+	private int maxScore;
+	private long wins;
+	private long nanos;
+
+	/**
+	 * Creates a new Simulation object.
+	 * @param	list	loaded list of words, copied for each game
+	 * @param	gridSize	size of the grids
+	 * @param	policy	chooses the moves of every game
+	 * @param	seed	number the seed of each game is made from, so that the same seed plays the same games
+	 */
+	public Simulation(WordsList list, int gridSize, MovePolicy policy, long seed) {
+		this.list = list;
+		this.gridSize = gridSize;
+		this.policy = policy;
+		this.seed = seed;
+	}
+
+	/**
+	 * Plays a single game until no word can be placed anymore.
+	 * @param	number	number of the game, which gives its random grid
+	 * @return	the finished game
+	 */
+	public Game play(long number) {
+		Random rand = new Random(Zobrist.key(seed + number)); // Scrambled, so that the generators of consecutive games are not related
+		Grid grid = new Grid();
+		grid.setSize(gridSize);
+		grid.init(rand);
+		Game game = new Game(grid, new WordsList(list));
+		game.setOutput(null); // Do not print LOST or WIN for each game
+		game.setEnd(() -> {});
+		Move move;
+		while((move = policy.choose(game, rand)) != null && move.play(game));
+		return game;
+	}
+
+	/**
+	 * Plays the given number of games on several threads and writes their results.
+	 *
+	 * Each line of the results holds the number of the game, its score, the number of words placed and left, and whether all words were placed.
+	 * @param	count	number of games to play
+	 * @param	threads	number of threads to play on
+	 * @param	results	where to write the results, or null to only keep the statistics
+	 * @throws	IOException	if the results cannot be written
+	 */
+	public void run(long count, int threads, Writer results) throws IOException {
+		games = scoreSum = wins = 0;
+		minScore = Integer.MAX_VALUE;
+		maxScore = 0;
+		if(results != null) results.write("game,score,placed,left,win\n");
+		AtomicLong next = new AtomicLong(); // Number of the next game to play
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for(int t = 0; t < threads; t++) {
+				tasks.add(() -> {
+					StringBuilder lines = new StringBuilder(); // Written by blocks, so that threads rarely wait for each other
+					long played = 0, sum = 0, won = 0;
+					int min = Integer.MAX_VALUE, max = 0;
+					for(long number = next.getAndIncrement(); number < count; number = next.getAndIncrement()) {
+						Game game = play(number);
+						int score = game.grid.getTotalScore();
+						boolean win = game.list.size() == 0;
+						played++;
+						sum += score;
+						min = Math.min(min, score);
+						max = Math.max(max, score);
+						if(win) won++;
+						if(results == null) continue;
+						lines.append(number).append(',').append(score).append(',').append(game.grid.getMoveCount()).append(',')
+							.append(game.list.size()).append(',').append(win ? 1 : 0).append('\n');
+						if(lines.length() >= 1 << 16) flush(results, lines);
+					}
+					if(results != null) flush(results, lines);
+					synchronized(this) {
+						games += played;
+						scoreSum += sum;
+						wins += won;
+						minScore = Math.min(minScore, min);
+						maxScore = Math.max(maxScore, max);
+					}
+					return null;
+				});
+			}
+			for(Future<Void> result: pool.invokeAll(tasks)) result.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e) { // Gives back the error of the thread that failed
+			if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		if(results != null) results.flush();
+		this.nanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Writes a block of lines to the results, one thread at a time, and empties it.
+	 * @param	results	where to write
+	 * @param	lines	lines to write
+	 * @throws	IOException	if the results cannot be written
+	 */
+	private static void flush(Writer results, StringBuilder lines) throws IOException {
+		synchronized(results) {
+			results.append(lines);
+		}
+		lines.setLength(0);
+	}
+
+	/**
+	 * Returns statistics about the last call to run().
+	 * @return	number of games, scores and games played per second
+	 */
+	public synchronized String getStatistics() {
+		double seconds = nanos / 1e9;
+		return String.format("%d games in %.3f s (%.0f games/s), score: mean %.2f, min %d, max %d, %d wins, seed %d",
+			games, seconds, games / seconds, games > 0 ? (double) scoreSum / games : 0.0, games > 0 ? minScore : 0, maxScore, wins, seed);
+	}
+}
@@ -0,0 +1,424 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class finds the best score that can be reached from a grid with a list of words, and the moves to reach it.
+ *
+ * It is an exact branch and bound search on a copy of the grid, which is never modified.
+ * Words are taken from the longest to the shortest, and each one is either placed at one of the positions where it fits or skipped.
+ * The order in which words are placed does not change the final score, so only this order is searched.
+ * Words of the same length are interchangeable, so their positions are only tried in increasing order.
+ *
+ * A branch is cut as soon as its score plus an upper bound on what remains cannot beat the best score found so far.
+ * The bound sums the highest digits left on the grid, as many as there are letters in the remaining words that still fit in an empty area.
+ * A transposition table, indexed by the Zobrist hash of the occupied cells kept by Grid, remembers the bound found for positions already searched.
+ * Those are reached again through other orders.
+ *
+ * The search can also run in parallel on a ForkJoinPool: the first levels of the tree are split into tasks, stolen by idle threads.
+ * Each thread searches on its own copy of the grid, and the best score is shared between threads so that all of them cut with it.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Solver {
+	private static final int TABLEBITS = 20; // The transposition table of each thread has 2^20 entries
+	private static final int SPLITDEPTH = 2; // Words placed by parallel tasks before searching sequentially
+
+	private Grid grid; // Copy of the grid, each Worker copies it again
+	private int size;
+	private String[] words; // Remaining words, longest first
+	private int[] indexes; // Index of each word in the words list
+	private int[] lengthsLeft; // Total length of the words from each index to the end
+
+	private AtomicInteger best = new AtomicInteger(); // Best additional score found so far, by any thread
+	private int[] bestPath; // Position of each word in the best solution, -1 if skipped
+	private List<Worker> workers = new ArrayList<>(); // Search state of each thread that took part in the search
+	private long nanos;
+
+	/**
+	 * Creates a new Solver object for the given grid and remaining words. Neither of them is modified.
+	 * @param	grid	grid to solve
+	 * @param	list	words that can still be placed
+	 */
+	public Solver(Grid grid, WordsList list) {
+		this.grid = new Grid(grid);
+		this.size = grid.getGrid().length;
+
+		// Sort the remaining words by decreasing length, remembering their index in the list
+		int count = 0;
+		long[] sorted = new long[list.size()];
+		for(int i = 0; i < list.loadedCount(); i++) {
+			if(!list.isDeleted(i)) sorted[count++] = ((long) -list.wordLength(i) << 32) | i; // Sorting this in increasing order sorts by decreasing length, then index
+		}
+		Arrays.sort(sorted, 0, count);
+		this.words = new String[count];
+		this.indexes = new int[count];
+		this.lengthsLeft = new int[count+1];
+		for(int i = 0; i < count; i++) {
+			indexes[i] = (int) sorted[i];
+			words[i] = list.getWord(indexes[i]);
+		}
+		for(int i = count-1; i >= 0; i--) lengthsLeft[i] = lengthsLeft[i+1] + words[i].length();
+
+		this.bestPath = new int[count];
+		Arrays.fill(bestPath, -1);
+	}
+
+	/**
+	 * Searches the best score in the current thread. Can only be called once.
+	 * @return	best total score that can be reached, including the score already made on the grid
+	 */
+	public int solve() {
+		long start = System.nanoTime();
+		this.newWorker().search(0, 0);
+		this.nanos = System.nanoTime() - start;
+		return this.getBestScore();
+	}
+
+	/**
+	 * Searches the best score with several threads. Can only be called once.
+	 * @param	parallelism	number of threads to use
+	 * @return	best total score that can be reached, including the score already made on the grid
+	 */
+	public int solveParallel(int parallelism) {
+		long start = System.nanoTime();
+		ThreadLocal<Worker> local = ThreadLocal.withInitial(this::newWorker); // Each thread of the pool gets its own grid the first time it runs a task
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new Split(new int[0], local));
+		}
+		finally {
+			pool.shutdown();
+		}
+		this.nanos = System.nanoTime() - start;
+		return this.getBestScore();
+	}
+
+	/**
+	 * Creates the search state for a new thread.
+	 * @return	a new Worker, also added to the list of workers
+	 */
+	private Worker newWorker() {
+		Worker worker = new Worker();
+		synchronized(workers) {
+			workers.add(worker);
+		}
+		return worker;
+	}
+
+	/**
+	 * Records a new best solution if it is better than the current one.
+	 * @param	score	additional score of the solution
+	 * @param	path	position of each word of the solution up to depth
+	 * @param	depth	number of words decided in path, the next ones are skipped
+	 */
+	private synchronized void improve(int score, int[] path, int depth) {
+		if(score <= best.get()) return; // Another thread found better in the meantime
+		System.arraycopy(path, 0, bestPath, 0, depth);
+		Arrays.fill(bestPath, depth, bestPath.length, -1);
+		best.set(score);
+	}
+
+	/**
+	 * Parallel task placing or skipping the first words, then searching the rest of the tree sequentially.
+	 */
+	private class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L; // Never serialized, only running in a ForkJoinPool
+		private int[] prefix; // Position of each of the first words, -1 if skipped
+
+		private ThreadLocal<Worker> local;
+
+		/**
+		 * Creates a new Split task.
+		 * @param	prefix	positions of the words already decided
+		 * @param	local	search state of each thread
+		 */
+		Split(int[] prefix, ThreadLocal<Worker> local) {
+			this.prefix = prefix;
+			this.local = local;
+		}
+
+		/**
+		 * Replays the prefix on the grid of the current thread, then either searches or splits again.
+		 */
+		@Override
+		protected void compute() {
+			Worker worker = local.get();
+			int depth = prefix.length;
+			int score = worker.replay(prefix);
+			if(depth >= SPLITDEPTH || depth == words.length) {
+				worker.search(depth, score);
+				worker.unreplay(prefix);
+				return;
+			}
+			if(score > best.get()) improve(score, worker.path, depth);
+			if(score + worker.bound(depth, worker.skipOnly(depth), best.get() - score) <= best.get()) {
+				worker.unreplay(prefix);
+				return;
+			}
+			int[] children = worker.children(depth);
+			worker.unreplay(prefix); // The tasks may run on other threads, they replay the prefix themselves
+			Split[] tasks = new Split[children.length];
+			for(int i = 0; i < children.length; i++) {
+				int[] next = Arrays.copyOf(prefix, depth+1);
+				next[depth] = children[i];
+				tasks[i] = new Split(next, local);
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Search state of one thread: its own copy of the grid, current branch and transposition table.
+	 */
+	private class Worker {
+		private Grid grid = new Grid(Solver.this.grid);
+		private int[] path = new int[words.length]; // Position of each word in the current branch, -1 if skipped
+		private long[][] candidates = new long[words.length][]; // Candidate positions for each depth with their score, allocated once
+		private long[] tableKeys = new long[1 << TABLEBITS];
+		private int[] tableBounds = new int[1 << TABLEBITS]; // Upper bound of the additional score from the position with the same key
+		private long nodes;
+
+		/**
+		 * Creates a new Worker object with an empty transposition table.
+		 */
+		Worker() {
+			Arrays.fill(tableBounds, -1); // No entry yet
+		}
+
+		/**
+		 * Searches all the ways to place the words from the given depth, keeping the best one.
+		 * @param	depth	index of the word to place or skip
+		 * @param	score	additional score of the words placed before depth
+		 * @return	upper bound of the additional score that can be earned from depth, exact if the branch was not cut
+		 */
+		int search(int depth, int score) {
+			nodes++;
+			if(score > best.get()) improve(score, path, depth); // Skipping every remaining word is a solution, so this is the best one so far
+			if(depth == words.length) return 0;
+
+			int length = words[depth].length();
+			int after = after(depth);
+			boolean skipOnly = skipOnly(depth);
+
+			int bound = bound(depth, skipOnly, best.get() - score);
+			if(score + bound <= best.get()) return bound;
+
+			long key = grid.getOccupancyKey() ^ Zobrist.key(((long) depth << 32) | (after + 1)); // The position also depends on the words left and where they may go
+			int slot = (int) (key >>> (64 - TABLEBITS));
+			if(tableBounds[slot] >= 0 && tableKeys[slot] == key) {
+				if(score + tableBounds[slot] <= best.get()) return tableBounds[slot];
+			}
+
+			int result = 0;
+			if(!skipOnly && length <= grid.maxContiguous()) {
+				int count = candidates(depth, length, after);
+				long[] cand = candidates[depth];
+				int rest = bound(depth+1, false, best.get() - score); // Bound for the next words, before placing this one
+				for(int i = 0; i < count; i++) {
+					int gain = Integer.MAX_VALUE - (int) (cand[i] >>> 32);
+					if(score + gain + rest <= best.get()) { // Candidates are sorted by decreasing score, so none of the next ones can do better
+						result = Math.max(result, gain + rest);
+						break;
+					}
+					int pos = (int) cand[i];
+					place(depth, pos);
+					result = Math.max(result, gain + search(depth+1, score + gain));
+					unplace();
+				}
+			}
+			path[depth] = -1;
+			result = Math.max(result, search(depth+1, score));
+
+			tableKeys[slot] = key;
+			tableBounds[slot] = result;
+			return result;
+		}
+
+		/**
+		 * Returns the position after which the word at the given depth must be placed.
+		 * @param	depth	index of the word
+		 * @return	position of the previous word if it has the same length, -1 otherwise
+		 */
+		int after(int depth) {
+			return depth > 0 && words[depth-1].length() == words[depth].length() ? path[depth-1] : -1; // Interchangeable words are placed in increasing positions
+		}
+
+		/**
+		 * Checks whether the word at the given depth can only be skipped.
+		 * @param	depth	index of the word
+		 * @return	true if the previous word has the same length and was skipped
+		 */
+		boolean skipOnly(int depth) {
+			return depth > 0 && words[depth-1].length() == words[depth].length() && path[depth-1] < 0;
+		}
+
+		/**
+		 * Lists the positions where the word at the given depth fits, best scores first.
+		 *
+		 * A position is the index of the first cell for horizontal words, plus size*size for vertical ones.
+		 * Each candidate is stored as a long, the score in the high half (subtracted from Integer.MAX_VALUE so that sorting puts the best first) and the position in the low half.
+		 * @param	depth	index of the word
+		 * @param	length	length of the word
+		 * @param	after	only positions greater than this one are listed
+		 * @return	number of candidates stored in candidates[depth]
+		 */
+		int candidates(int depth, int length, int after) {
+			if(candidates[depth] == null) candidates[depth] = new long[2*size*size];
+			long[] cand = candidates[depth];
+			int count = 0;
+			for(int pos = after+1; pos < 2*size*size; pos++) {
+				boolean v = pos >= size*size;
+				int gain = grid.scoreOf(length, (v ? pos - size*size : pos) / size, pos % size, v);
+				if(gain >= 0) cand[count++] = ((long) (Integer.MAX_VALUE - gain) << 32) | pos;
+			}
+			Arrays.sort(cand, 0, count);
+			return count;
+		}
+
+		/**
+		 * Lists every choice for the word at the given depth, used to split the search into tasks.
+		 * @param	depth	index of the word
+		 * @return	positions where the word fits, best scores first, then -1 to skip it
+		 */
+		int[] children(int depth) {
+			int count = 0;
+			if(!skipOnly(depth) && words[depth].length() <= grid.maxContiguous())
+				count = candidates(depth, words[depth].length(), after(depth));
+			int[] children = new int[count+1];
+			for(int i = 0; i < count; i++) children[i] = (int) candidates[depth][i];
+			children[count] = -1;
+			return children;
+		}
+
+		/**
+		 * Places the word at the given depth and updates the current branch.
+		 * @param	depth	index of the word
+		 * @param	pos	position of the word, as in candidates()
+		 */
+		void place(int depth, int pos) {
+			boolean v = pos >= size*size;
+			int l = (v ? pos - size*size : pos) / size;
+			int c = pos % size;
+			grid.place(words[depth], l, c, v);
+			path[depth] = pos;
+		}
+
+		/**
+		 * Removes the word placed last by place().
+		 */
+		void unplace() {
+			grid.undo();
+		}
+
+		/**
+		 * Places the first words as given by a task.
+		 * @param	prefix	positions of the first words, -1 if skipped
+		 * @return	score of the placed words
+		 */
+		int replay(int[] prefix) {
+			int score = 0;
+			for(int i = 0; i < prefix.length; i++) {
+				path[i] = prefix[i];
+				if(prefix[i] < 0) continue;
+				place(i, prefix[i]);
+				score += grid.getWordScore();
+			}
+			return score;
+		}
+
+		/**
+		 * Removes the words placed by replay(), leaving the grid as it was.
+		 * @param	prefix	positions given to replay()
+		 */
+		void unreplay(int[] prefix) {
+			for(int i = prefix.length-1; i >= 0; i--) {
+				if(prefix[i] >= 0) unplace();
+			}
+		}
+
+		/**
+		 * Upper bound of the additional score from the given depth.
+		 *
+		 * Words longer than the longest empty area cannot be placed anymore.
+		 * The others cannot earn more than the highest digits left on the grid, one per letter.
+		 * If that is not enough to cut the branch, each word also cannot earn more than the best position for its length taken alone.
+		 * @param	depth	index of the first remaining word
+		 * @param	skipOnly	true if the words with the same length as the one at depth must be skipped
+		 * @param	target	the branch is cut if the bound is not greater than this, no need to search a lower bound then
+		 * @return	upper bound of the additional score
+		 */
+		int bound(int depth, boolean skipOnly, int target) {
+			int i = depth;
+			if(skipOnly) while(i < words.length && words[i].length() == words[depth].length()) i++;
+			int max = grid.maxContiguous();
+			while(i < words.length && words[i].length() > max) i++; // Words are sorted by decreasing length
+			int letters = lengthsLeft[i];
+			int[] digits = grid.getFreeDigits();
+			int bound = 0;
+			for(int d = 9; d > 0 && letters > 0; d--) { // Take the highest digits first
+				int n = Math.min(letters, digits[d]);
+				bound += n*d;
+				letters -= n;
+			}
+			if(bound <= target) return bound;
+
+			int windows = 0;
+			int window = 0;
+			for(int j = i; j < words.length && windows < bound; j++) {
+				if(j == i || words[j].length() != words[j-1].length()) window = Math.max(Grid.bestPlacement(grid.getGrid(), words[j].length(), null), 0); // Best score of the word alone on the grid
+				windows += window;
+			}
+			return Math.min(bound, windows);
+		}
+	}
+
+	/**
+	 * Returns the best total score found, including the score already made on the grid.
+	 * @return	best total score
+	 */
+	public int getBestScore() {
+		return grid.getTotalScore() + best.get();
+	}
+
+	/**
+	 * Returns the moves reaching the best score, as commands understood by Terminal.
+	 * @return	one command such as "3h(0,2)" for each word to place, in order
+	 */
+	public String[] getBestMoves() {
+		String[] moves = new String[(int) Arrays.stream(bestPath).filter(pos -> pos >= 0).count()];
+		int n = 0;
+		for(int i = 0; i < bestPath.length; i++) {
+			int pos = bestPath[i];
+			if(pos < 0) continue; // This word is not placed
+			boolean v = pos >= size*size;
+			moves[n++] = indexes[i] + (v ? "v" : "h") + "(" + (v ? pos - size*size : pos) / size + "," + pos % size + ")";
+		}
+		return moves;
+	}
+
+	/**
+	 * Returns the number of positions searched, by all threads.
+	 * @return	number of nodes
+	 */
+	public long getNodes() {
+		long nodes = 0;
+		synchronized(workers) {
+			for(Worker worker: workers) nodes += worker.nodes;
+		}
+		return nodes;
+	}
+
+	/**
+	 * Returns the number of positions searched per second by the last call to solve() or solveParallel().
+	 * @return	nodes per second
+	 */
+	public long getNodesPerSecond() {
+		return this.nanos > 0 ? this.getNodes() * 1000000000L / this.nanos : 0;
+	}
+}
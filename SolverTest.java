@@ -0,0 +1,122 @@
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class checks that Solver finds the best score, in one thread or several, by comparing it with an exhaustive search on grids small enough for one.
+ *
+ * The exhaustive search tries every word at every position where it fits, or not at all, without cutting any branch,
+ * so it checks the cuts of the branch and bound, the transposition table and the order the words are tried in.
+ * The moves given by the solver are played again on the grid, and must reach the score announced.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class SolverTest {
+	private static final Pattern MOVE = Pattern.compile("(\\d+)([hv])\\((\\d+),(\\d+)\\)"); // Moves given by Solver
+
+	/**
+	 * This class only has static methods.
+	 */
+	private SolverTest() {
+	}
+
+	/**
+	 * Finds the best additional score by trying every word at every position or not at all.
+	 * @param	grid	grid to place the words on, given back as it was
+	 * @param	words	remaining words
+	 * @param	from	index of the first word not tried yet
+	 * @return	best additional score
+	 */
+	private static int exhaustive(Grid grid, String[] words, int from) {
+		if(from == words.length) return 0;
+		int best = exhaustive(grid, words, from+1); // The word is skipped
+		int size = grid.getGrid().length;
+		for(int l = 0; l < size; l++) {
+			for(int c = 0; c < size; c++) {
+				for(boolean v: new boolean[] {false, true}) {
+					if(!grid.place(words[from], l, c, v)) continue;
+					best = Math.max(best, grid.getWordScore() + exhaustive(grid, words, from+1));
+					grid.undo();
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Plays the moves given by the solver on a copy of the grid.
+	 * @param	grid	grid the search started from
+	 * @param	list	words the search was given
+	 * @param	moves	moves given by the solver
+	 * @return	total score after the moves
+	 */
+	private static int play(Grid grid, WordsList list, String[] moves) {
+		Grid copy = new Grid(grid);
+		WordsList left = new WordsList(list);
+		for(String move: moves) {
+			Matcher m = MOVE.matcher(move);
+			Check.that(m.matches(), "move " + move + " cannot be read");
+			int index = Integer.parseInt(m.group(1));
+			String word = left.getWord(index);
+			Check.that(word != null, "move " + move + " places a word not in the list, or twice");
+			Check.that(copy.place(word, Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)), m.group(2).equals("v")), "move " + move + " does not fit");
+			left.deleteWord(index);
+		}
+		return copy.getTotalScore();
+	}
+
+	/**
+	 * Compares the solver with the exhaustive search on random grids, some of them with words already placed and deleted from the list.
+	 */
+	private static void optimality() {
+		for(int seed = 0; seed < 60; seed++) {
+			Random rand = new Random(seed);
+			int size = 2 + seed % 4;
+			Grid grid = Check.grid(size, rand);
+			WordsList list = Check.words(rand, 3 + rand.nextInt(size == 5 ? 2 : 3), size);
+			if(seed % 3 == 0 && grid.place(list.getWord(0), 0, 0, false)) list.deleteWord(0); // A game already started
+
+			String[] words = Arrays.stream(list.getWordsList()).filter(Objects::nonNull).toArray(String[]::new);
+			int best = grid.getTotalScore() + exhaustive(new Grid(grid), words, 0);
+			String position = "seed " + seed + ", words " + Arrays.toString(words) + "\n" + grid;
+
+			Solver solver = new Solver(grid, list);
+			Check.that(solver.solve() == best, "solver found " + solver.getBestScore() + " instead of " + best + ", " + position);
+			Check.that(play(grid, list, solver.getBestMoves()) == best, "moves of the solver do not reach its score, " + position);
+
+			Solver parallel = new Solver(grid, list);
+			Check.that(parallel.solveParallel(2) == best, "parallel solver found " + parallel.getBestScore() + " instead of " + best + ", " + position);
+			Check.that(play(grid, list, parallel.getBestMoves()) == best, "moves of the parallel solver do not reach its score, " + position);
+		}
+	}
+
+	/**
+	 * Checks the solver when no word fits or none is left.
+	 */
+	private static void nothingToPlace() {
+		Random rand = new Random(1);
+		Grid grid = Check.grid(3, rand);
+		WordsList list = Check.words(rand, 2, 1);
+		for(int i = 0; i < 3; i++) grid.place("abc", i, 0, false); // Full grid
+		Solver solver = new Solver(grid, list);
+		Check.that(solver.solve() == grid.getTotalScore() && solver.getBestMoves().length == 0, "solver placed a word on a full grid");
+
+		list.deleteWord(0);
+		list.deleteWord(1);
+		grid.undo();
+		solver = new Solver(grid, list);
+		Check.that(solver.solve() == grid.getTotalScore() && solver.getBestMoves().length == 0, "solver placed a word from an empty list");
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		optimality();
+		nothingToPlace();
+		Check.done("SolverTest");
+	}
+}
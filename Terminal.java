@@ -1,7 +1,6 @@
 import java.io.*;
 import java.util.*;
 import java.text.*;
-import java.util.regex.*;
 
 /**
  * This class allows interaction with the grid based on a command line in the GNU.
@@ -11,38 +10,179 @@ import java.util.regex.*;
  */
 public class Terminal {
 	Game game;
+	private PrintStream out; // Where the answers to the commands are printed
+	private int[] move = new int[4]; // Last parsed move: index, line, column, 1 if vertical
+	private MovePolicy policy; // Chooses the move of the command "play", or null
+	private Random rand = new Random();
+	private Move played; // Last move chosen by the policy
+
+	// What running a command did, counted by batch()
+	private static final int PLACED = 0;
+	private static final int WRONG = 1; // Valid command, but the word cannot be placed there
+	private static final int ERROR = 2; // Invalid command
+	private static final int UNDONE = 3;
+	private static final int NOUNDO = 4;
+	private static final int REDONE = 5;
+	private static final int NOREDO = 6;
+	private static final int PLAYED = 7;
+	private static final int NOPLAY = 8; // No policy, or no word can be placed anymore
 
 	/**
 	 * Class constructor
 	 * @param      game    previously created in the Project class in main()
 	 */
 	public Terminal(Game game) {
+		this(game, System.out);
+	}
+
+	/**
+	 * Class constructor printing the answers to the commands to the given stream instead of the standard output.
+	 * @param      game    game to play
+	 * @param      out     stream to print to
+	 */
+	public Terminal(Game game, PrintStream out) {
 		this.game = game;
+		this.out = out;
+	}
+
+	/**
+	 * Sets the policy choosing the move played by the command "play".
+	 * @param      policy  chooses the moves, or null to refuse the command
+	 */
+	public void setPolicy(MovePolicy policy) {
+		this.policy = policy;
 	}
 
 	/**
 	 * Place words in the grid based on a command line previously read and used
+	 * The commands "undo" and "redo" remove the last placed word and place it again.
+	 * The command "play" places the word chosen by the policy.
 	 */
 	public void setWordTerminal() {
 		try {//A try/catch is necesssary because StdInput.readLine() can generate an error.
-			boolean vert = false;
-			String command = StdInput.readLine();
-			//Creation of a regexp which matches only the command line type given in instructions
-			Pattern pexp = Pattern.compile("([0-9]+)([hv])\\(([0-9]+),([0-9]+)\\)");
-			Matcher m1 = pexp.matcher(command.trim());
-			if(m1.matches()) {
-				if(m1.group(2).equals("v")) vert = true;
-
-				//Each group created with the regexp is String so it is necessary to add Integer.valueOf in order to convert it to Int
-				if(!this.game.setWord(Integer.valueOf(m1.group(1)),
-					Integer.valueOf(m1.group(3)) , Integer.valueOf(m1.group(4)) , vert)) {
-						System.out.println("Wrong placement");
-				}
-			}
-			else System.out.println("Error in command line");
+			this.execute(StdInput.readLine());
 		} catch(IOException e) {System.err.println("Input/Output Error.");}
 	}
 
+	/**
+	 * Runs a single command, with the same syntax as the ones typed in the Terminal.
+	 * @param      command the command line
+	 */
+	public void execute(String command) {
+		switch(this.run(command)) {
+			case WRONG:
+				out.println("Wrong placement");
+				break;
+			case ERROR:
+				out.println("Error in command line");
+				break;
+			case NOUNDO:
+				out.println("Nothing to undo");
+				break;
+			case NOREDO:
+				out.println("Nothing to redo");
+				break;
+			case PLAYED:
+				out.println("Played " + played); // Same syntax as the commands
+				if(policy instanceof MctsPlayer) out.println(((MctsPlayer) policy).getStatistics());
+				break;
+			case NOPLAY:
+				out.println(policy == null ? "No player to choose a move" : "No move to play");
+				break;
+		}
+	}
+
+	/**
+	 * Prints the total score and the most the remaining words can still earn, given by Game.getUpperBound().
+	 */
+	public void printScore() {
+		out.println("Score: " + game.grid.getTotalScore() + ", at most " + game.getUpperBound() + " more to earn");
+	}
+
+	/**
+	 * Runs every command read from a file or a pipe, without printing anything, then returns a summary.
+	 * @param      in      commands, one per line
+	 * @return     number of commands of each kind, final score and time taken
+	 * @throws     IOException     if the commands cannot be read
+	 */
+	public String batch(BufferedReader in) throws IOException {
+		long start = System.nanoTime();
+		int[] counts = new int[9];
+		int lines = 0;
+		String command;
+		while((command = in.readLine()) != null) {
+			lines++;
+			counts[this.run(command)]++;
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		return String.format("%d commands: %d placed, %d wrong placements, %d errors, %d undone, %d redone, %d with nothing to undo or redo, %d played, %d with nothing to play%n"
+			+ "Score: %d, %d words left%s%n%.3f s (%.0f commands/s)",
+			lines, counts[PLACED], counts[WRONG], counts[ERROR], counts[UNDONE], counts[REDONE], counts[NOUNDO] + counts[NOREDO], counts[PLAYED], counts[NOPLAY],
+			game.grid.getTotalScore(), game.list.size(), game.checkEnd() ? ", game over" : "", seconds, lines / seconds);
+	}
+
+	/**
+	 * Runs a single command without printing anything.
+	 * @param      command the command line
+	 * @return     what the command did
+	 */
+	private int run(String command) {
+		command = command.trim();
+		if(command.equals("undo")) return this.game.undo() ? UNDONE : NOUNDO; // Remove the last placed word
+		if(command.equals("redo")) return this.game.redo() ? REDONE : NOREDO; // Place again the last removed word
+		if(command.equals("play")) { // Let the policy choose the move
+			if(policy == null || (played = policy.choose(this.game, rand)) == null) return NOPLAY;
+			return played.play(this.game) ? PLAYED : NOPLAY;
+		}
+		if(!parse(command, move)) return ERROR;
+		return this.game.setWord(move[0], move[1], move[2], move[3] == 1) ? PLACED : WRONG;
+	}
+
+	/**
+	 * Reads a move written like 12h(3,4): index of the word, h or v for the direction, then line and column.
+	 *
+	 * The characters are read one by one, without any regular expression, intermediate String or boxed number.
+	 * @param      command the command, without blanks around it
+	 * @param      move    receives the index, the line, the column and 1 if vertical
+	 * @return     true if the command is a valid move
+	 */
+	static boolean parse(String command, int[] move) {
+		long read = number(command, 0);
+		if(read < 0 || (int) read >= command.length()) return false;
+		move[0] = (int) (read >>> 32);
+		int pos = (int) read;
+		char direction = command.charAt(pos++);
+		if(direction != 'h' && direction != 'v') return false;
+		move[3] = direction == 'v' ? 1 : 0;
+		if(pos >= command.length() || command.charAt(pos++) != '(') return false;
+
+		read = number(command, pos);
+		if(read < 0 || (int) read >= command.length() || command.charAt((int) read) != ',') return false;
+		move[1] = (int) (read >>> 32);
+
+		read = number(command, (int) read + 1);
+		if(read < 0 || (int) read >= command.length() || command.charAt((int) read) != ')') return false;
+		move[2] = (int) (read >>> 32);
+		return (int) read + 1 == command.length(); // Nothing after the closing parenthesis
+	}
+
+	/**
+	 * Reads a number made of ASCII digits.
+	 * @param      command the command
+	 * @param      pos     position of the first digit
+	 * @return     the number in the 32 high bits and the position after its last digit in the 32 low bits,
+	 *             or -1 if there is no digit or if the number is too large for an int
+	 */
+	private static long number(String command, int pos) {
+		int start = pos;
+		long value = 0;
+		while(pos < command.length() && command.charAt(pos) >= '0' && command.charAt(pos) <= '9') {
+			value = 10*value + (command.charAt(pos++) - '0');
+			if(value > Integer.MAX_VALUE) return -1;
+		}
+		return pos == start ? -1 : value << 32 | pos;
+	}
+
 	/**
 	 * Print "End" and exit the game when the game is finished.
 	 */
@@ -0,0 +1,123 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class checks that Terminal.parse() accepts exactly the commands the regular expression it replaced accepted, and reads the same numbers.
+ *
+ * The old Terminal matched each command against OLD, then converted the groups with Integer.valueOf(), a number too large for an int being an error.
+ * Both are run on a table of valid and invalid commands, then on random strings made of the characters of a command.
+ * A batch of commands is also run twice on the same grid with the default policy of the batch mode, and must end the same way.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class TerminalTest {
+	private static final Pattern OLD = Pattern.compile("([0-9]+)([hv])\\(([0-9]+),([0-9]+)\\)"); // Pattern of the Terminal before parse()
+
+	/**
+	 * This class only has static methods.
+	 */
+	private TerminalTest() {
+	}
+
+	/**
+	 * Reads a command the way the Terminal did before parse().
+	 * @param	command	the command, without blanks around it
+	 * @return	the index, the line, the column and 1 if vertical, or null if the command is invalid
+	 */
+	private static int[] old(String command) {
+		Matcher m = OLD.matcher(command);
+		if(!m.matches()) return null;
+		try {
+			return new int[] {Integer.valueOf(m.group(1)), Integer.valueOf(m.group(3)), Integer.valueOf(m.group(4)), m.group(2).equals("v") ? 1 : 0};
+		}
+		catch(NumberFormatException e) { // Number too large for an int
+			return null;
+		}
+	}
+
+	/**
+	 * Compares parse() with the old pattern on a command.
+	 * @param	command	the command
+	 */
+	private static void compare(String command) {
+		int[] expected = old(command);
+		int[] move = {-1, -1, -1, -1};
+		boolean valid = Terminal.parse(command, move);
+		Check.that(valid == (expected != null), "\"" + command + "\" is " + (valid ? "valid" : "invalid") + " for parse() only");
+		if(valid) Check.that(Arrays.equals(move, expected), "\"" + command + "\" read as " + Arrays.toString(move));
+	}
+
+	/**
+	 * Compares parse() with the old pattern on commands chosen for each way a command can be right or wrong.
+	 */
+	private static void table() {
+		String[] commands = {
+			"0h(0,0)", "12v(3,4)", "007h(08,0009)", "2147483647v(2147483647,2147483647)", // Valid
+			"2147483648h(0,0)", "0h(2147483648,0)", "0v(0,99999999999999999999)", // Numbers too large
+			"", "h(0,0)", "0(0,0)", "0x(0,0)", "0H(0,0)", "0h", "0h(", "0h()", "0h(0)", "0h(0,)", "0h(,0)", "0h(0,0", // Missing or wrong parts
+			"0h(0,0))", "0h(0,0)x", "0h(0;0)", "0h[0,0]", "0h (0,0)", "0h(0, 0)", " 0h(0,0)", "0h(0,0) ", // Extra or wrong characters
+			"-1h(0,0)", "0h(-1,0)", "+1h(0,0)", "1.0h(0,0)", "0hh(0,0)", "0h((0,0)", "0h(0,,0)", "0h(0,0,0)",
+			"١h(0,0)", "0h(١,0)", "０h(0,0)", // Digits of other scripts
+			"undo", "redo", "play"
+		};
+		for(String command: commands) compare(command);
+	}
+
+	/**
+	 * Compares parse() with the old pattern on random strings of the characters found in commands.
+	 */
+	private static void random() {
+		Random rand = new Random(0);
+		String alphabet = "0123456789hv(),x ";
+		StringBuilder command = new StringBuilder();
+		for(int i = 0; i < 200_000; i++) {
+			command.setLength(0);
+			if(rand.nextBoolean()) { // Close to a valid command, so that many are valid
+				command.append(rand.nextInt(1000)).append(rand.nextBoolean() ? 'h' : 'v').append('(').append(rand.nextInt(100)).append(',').append(rand.nextInt(100)).append(')');
+				if(rand.nextInt(4) == 0) command.setCharAt(rand.nextInt(command.length()), alphabet.charAt(rand.nextInt(alphabet.length())));
+			}
+			else {
+				for(int j = rand.nextInt(12); j > 0; j--) command.append(alphabet.charAt(rand.nextInt(alphabet.length())));
+			}
+			compare(command.toString());
+		}
+	}
+
+	/**
+	 * Runs the same commands twice on the same grid, letting the default policy of the batch mode play, and compares the summaries.
+	 * @throws	IOException	never, the commands are read from a String
+	 */
+	private static void replay() throws IOException {
+		String commands = "0h(0,0)\nplay\nplay\nundo\nplay\n1v(2,2)\nbad\nplay\nredo\n";
+		String[] summaries = new String[2];
+		for(int run = 0; run < 2; run++) {
+			Grid grid = Check.grid(6, new Random(7));
+			Game game = new Game(grid, Check.words("abc\nde\nfgh\nij\nklmn\nop\nq\n"));
+			game.setOutput(null);
+			game.setEnd(() -> {});
+			Terminal terminal = new Terminal(game);
+			terminal.setPolicy(MovePolicy.byName("greedy"));
+			String summary = terminal.batch(new BufferedReader(new StringReader(commands)));
+			summaries[run] = summary.substring(0, summary.lastIndexOf('\n')) + "\n" + grid; // Without the time taken
+		}
+		Check.that(summaries[0].startsWith("9 commands: ") && summaries[0].contains("1 errors") && summaries[0].contains("4 played"), "summary: " + summaries[0]);
+		Check.that(summaries[0].equals(summaries[1]), "replaying the same commands gave\n" + summaries[0] + "\nthen\n" + summaries[1]);
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 * @throws	IOException	never
+	 */
+	public static void main(String[] args) throws IOException {
+		table();
+		random();
+		replay();
+		Check.done("TerminalTest");
+	}
+}
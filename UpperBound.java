@@ -0,0 +1,219 @@
+/**
+ * This class bounds the score the remaining words can still earn on a grid, without searching: the real score is never higher.
+ *
+ * Words never share a cell, and each of them covers a window of empty cells of its length, horizontally or vertically.
+ * So the words of a length cannot earn more than the same number of best windows of that length, taken as if they did not overlap,
+ * and all the words together cannot earn more than the highest digits left on the grid, one per letter that still fits somewhere.
+ * The bound is the lowest of the two.
+ *
+ * The windows are counted by length and by sum of their digits, so the best ones are found by reading at most 9 counts per point of score.
+ * Only the lengths of the words are counted, with a pass over the grid for each of them, once.
+ * Afterwards, each cell changed by a word placed or undone only counts again the windows going through it,
+ * which are at most as long as the longest word.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class UpperBound implements Grid.CellListener {
+	private Grid grid;
+	private char[][] cells; // Content the windows were counted from, to notice when the grid is filled again
+	private int size;
+	private int[] lengths; // Lengths counted, shortest first
+	private int maxLength; // Longest length counted, 0 if none
+	private byte[] digits; // Digit of each empty cell, line by line, -1 for occupied cells, as counted
+	private int[][] windows; // Number of windows of each length with each sum of digits, null for the lengths not counted
+	private int[] total; // Number of windows of each length
+	private int[] counts; // Words of each length, reused by get()
+	private int[] prefix; // Sums of the digits around a cell, reused by count()
+
+	/**
+	 * Creates a new UpperBound object, counts the windows of the grid for the given lengths, and follows the changes of the grid.
+	 * @param	grid	grid the words are placed on
+	 * @param	counted	true for each length to count, indexed by length; lengths longer than the grid are ignored
+	 */
+	public UpperBound(Grid grid, boolean[] counted) {
+		this.grid = grid;
+		this.cells = grid.getGrid();
+		this.size = cells.length;
+		int count = 0;
+		for(int length = 1; length < counted.length && length <= size; length++) {
+			if(counted[length]) count++;
+		}
+		this.lengths = new int[count];
+		count = 0;
+		for(int length = 1; length < counted.length && length <= size; length++) {
+			if(counted[length]) lengths[count++] = length;
+		}
+		this.maxLength = count > 0 ? lengths[count-1] : 0;
+		this.digits = new byte[size*size];
+		this.windows = new int[maxLength+1][];
+		for(int length: lengths) windows[length] = new int[9*length+1];
+		this.total = new int[maxLength+1];
+		this.counts = new int[maxLength+1];
+		this.prefix = new int[2*maxLength];
+
+		for(int l = 0; l < size; l++) {
+			for(int c = 0; c < size; c++) digits[l*size + c] = (byte) Grid.digit(cells[l][c]);
+		}
+		int[] sums = new int[size+1]; // Sums of the digits of a line from its beginning
+		for(int l = 0; l < size; l++) {
+			int run = 0;
+			for(int c = 0; c < size; c++) {
+				int digit = digits[l*size + c];
+				if(digit < 0) {
+					run = 0;
+					sums[c+1] = sums[c];
+					continue;
+				}
+				sums[c+1] = sums[c] + digit;
+				run++;
+				for(int k = 0; k < count && lengths[k] <= run; k++) {
+					windows[lengths[k]][sums[c+1] - sums[c+1-lengths[k]]]++;
+					total[lengths[k]]++;
+				}
+			}
+		}
+		// Columns are read line by line, in the order the digits are stored, keeping the last sums of each column in a ring
+		int slots = maxLength+1;
+		int[] ring = new int[size*slots]; // Sum of the digits of each column from its beginning, for the last lines
+		int[] runs = new int[size];
+		for(int l = 0; l < size; l++) {
+			int now = (l+1) % slots;
+			for(int c = 0; c < size; c++) {
+				int digit = digits[l*size + c];
+				int sum = ring[c*slots + l % slots] + Math.max(digit, 0);
+				ring[c*slots + now] = sum;
+				if(digit < 0) {
+					runs[c] = 0;
+					continue;
+				}
+				runs[c]++;
+				for(int k = count > 0 && lengths[0] == 1 ? 1 : 0; k < count && lengths[k] <= runs[c]; k++) { // Windows of one cell are counted horizontally
+					windows[lengths[k]][sum - ring[c*slots + (l+1-lengths[k]) % slots]]++;
+					total[lengths[k]]++;
+				}
+			}
+		}
+		grid.addCellListener(this);
+	}
+
+	/**
+	 * Returns true if the windows of words of the given length are counted, so that get() accounts for them.
+	 * @param	length	length of the words
+	 * @return	true if the length is counted
+	 */
+	public boolean counts(int length) {
+		return length <= maxLength && windows[length] != null;
+	}
+
+	/**
+	 * Returns true if the windows were counted on the current content of the grid, false if it was filled again since.
+	 * @return	true if the bound can still be used
+	 */
+	public boolean follows() {
+		return cells == grid.getGrid();
+	}
+
+	/**
+	 * Stops following the changes of the grid. The bound cannot be used anymore.
+	 */
+	public void close() {
+		grid.removeCellListener(this);
+	}
+
+	/**
+	 * Counts again the windows going through a changed cell: the old windows are removed and the new ones added.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 */
+	@Override
+	public void cellChanged(int l, int c) {
+		if(!this.follows()) return; // Nothing counted on this content
+		int digit = Grid.digit(cells[l][c]);
+		if(digit == digits[l*size + c]) return;
+		this.count(l, c, false, -1);
+		this.count(l, c, true, -1);
+		digits[l*size + c] = (byte) digit;
+		this.count(l, c, false, 1);
+		this.count(l, c, true, 1);
+	}
+
+	/**
+	 * Adds or removes the windows going through an empty cell in one direction, from the digits as counted.
+	 * @param	l	line of the cell
+	 * @param	c	column of the cell
+	 * @param	v	true for the vertical windows
+	 * @param	sign	1 to add them, -1 to remove them
+	 */
+	private void count(int l, int c, boolean v, int sign) {
+		if(digits[l*size + c] < 0 || maxLength == 0) return;
+		int at = v ? l : c;
+		int step = v ? size : 1; // Distance between two cells of the window in digits
+		int first = at, last = at; // Empty cells around, no further than the longest window
+		while(first > 0 && at - first < maxLength-1 && digits[l*size + c - (at-first+1)*step] >= 0) first--;
+		while(last < size-1 && last - at < maxLength-1 && digits[l*size + c + (last-at+1)*step] >= 0) last++;
+		prefix[0] = 0;
+		for(int j = first; j <= last; j++) prefix[j-first+1] = prefix[j-first] + digits[l*size + c + (j-at)*step];
+		for(int length: lengths) {
+			if(length > last-first+1) break;
+			if(v && length == 1) continue; // Counted horizontally
+			for(int start = Math.max(first, at-length+1); start <= Math.min(at, last-length+1); start++) {
+				windows[length][prefix[start-first+length] - prefix[start-first]] += sign;
+				total[length] += sign;
+			}
+		}
+	}
+
+	/**
+	 * Returns the best score a word of the given length can earn alone on the grid, read from the windows counted.
+	 * @param	length	length of the word, which must be counted
+	 * @return	highest sum of a window of that length, -1 if the word fits nowhere
+	 */
+	public int best(int length) {
+		int[] bySum = windows[length];
+		for(int sum = bySum.length-1; sum >= 0; sum--) {
+			if(bySum[sum] > 0) return sum;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns an upper bound of the score the words left in a list can still earn.
+	 * @param	list	remaining words, each length of them counted unless it is longer than the grid
+	 * @return	upper bound of the additional score
+	 */
+	public int get(WordsList list) {
+		for(int length: lengths) counts[length] = list.countOfLength(length);
+		return this.get(counts);
+	}
+
+	/**
+	 * Returns an upper bound of the score the given words can still earn.
+	 * @param	counts	number of words of each length, each length of them counted unless it is longer than the grid
+	 * @return	upper bound of the additional score
+	 */
+	public int get(int[] counts) {
+		long best = 0, letters = 0; // Score of the best windows, and letters of the words having a window
+		for(int length: lengths) {
+			if(length >= counts.length) break;
+			int n = Math.min(counts[length], total[length]);
+			letters += (long) n*length;
+			int[] bySum = windows[length];
+			for(int sum = bySum.length-1; sum > 0 && n > 0; sum--) { // Take the best windows first
+				int k = Math.min(n, bySum[sum]);
+				best += (long) k*sum;
+				n -= k;
+			}
+		}
+
+		int[] free = grid.getFreeDigits();
+		long highest = 0;
+		for(int d = 9; d > 0 && letters > 0; d--) { // Take the highest digits first
+			long n = Math.min(letters, free[d]);
+			highest += n*d;
+			letters -= n;
+		}
+		return (int) Math.min(best, highest);
+	}
+}
@@ -0,0 +1,119 @@
+import java.util.*;
+
+/**
+ * This class checks that UpperBound, kept up to date cell by cell, gives the same bound as counting the grid again, and that it is never too low.
+ *
+ * Random words of a list are placed and undone on random grids followed by a bound.
+ * After each move, the bound is compared with a new one counted from the current content,
+ * the best window of each length with Grid.bestPlacement(), and the bound itself with the best score Solver finds from there.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class UpperBoundTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private UpperBoundTest() {
+	}
+
+	/**
+	 * Returns which lengths of words a list has, the way Game chooses the lengths to count.
+	 * @param	list	words
+	 * @return	true for each length having words, indexed by length
+	 */
+	private static boolean[] lengths(WordsList list) {
+		boolean[] counted = new boolean[list.maxLength()+1];
+		for(int length = 1; length < counted.length; length++) counted[length] = list.countOfLength(length) > 0;
+		return counted;
+	}
+
+	/**
+	 * Places and undoes words of a list on a grid followed by a bound, checking the bound after each move.
+	 */
+	private static void following() {
+		for(int seed = 0; seed < 40; seed++) {
+			Random rand = new Random(seed);
+			int size = 1 + seed % 8;
+			Grid grid = Check.grid(size, rand);
+			WordsList list = Check.words(rand, 2 + rand.nextInt(8), size + 1); // Some words may be longer than the grid
+			boolean[] counted = lengths(list);
+			UpperBound bound = new UpperBound(grid, counted);
+			int[] placed = new int[list.loadedCount()]; // Index of each word placed, the last one on top
+			int count = 0;
+
+			for(int move = 0; move < 60; move++) {
+				if(count > 0 && rand.nextInt(3) == 0) {
+					grid.undo();
+					list.restoreWord(placed[--count]);
+				}
+				else {
+					int index = rand.nextInt(list.loadedCount());
+					int l = rand.nextInt(size), c = rand.nextInt(size);
+					if(!list.isDeleted(index) && grid.place(list.getWord(index), l, c, rand.nextBoolean())) {
+						list.deleteWord(index);
+						placed[count++] = index;
+					}
+				}
+				String position = "seed " + seed + ", move " + move + ", words " + list + "\n" + grid;
+
+				Check.that(bound.follows(), "bound does not follow the grid anymore, " + position);
+				UpperBound fresh = new UpperBound(grid, counted);
+				Check.that(bound.get(list) == fresh.get(list), "bound " + bound.get(list) + " instead of " + fresh.get(list) + " counted again, " + position);
+				fresh.close();
+				for(int length = 1; length <= list.maxLength(); length++) {
+					Check.that(bound.counts(length) == (counted[length] && length <= size), "length " + length + " counted");
+					if(bound.counts(length)) Check.that(bound.best(length) == Grid.bestPlacement(grid.getGrid(), length, null), "best window of length " + length + ", " + position);
+				}
+				if(move % 4 == 0) {
+					int best = new Solver(grid, list).solve() - grid.getTotalScore();
+					Check.that(bound.get(list) >= best, "bound " + bound.get(list) + " lower than the best score " + best + ", " + position);
+				}
+			}
+
+			grid.init(rand); // Filled again, without telling the bound
+			Check.that(!bound.follows(), "bound still follows a grid filled again");
+			bound.close();
+			Check.that(!grid.removeCellListener(bound), "bound still listening after close()");
+		}
+	}
+
+	/**
+	 * Checks the bound on a grid small enough to work it out: the lowest of the best windows and of the highest digits.
+	 */
+	private static void known() {
+		Grid grid = Check.grid(2, new Random(0));
+		char[][] cells = grid.getGrid();
+		int[] counts = new int[3];
+		UpperBound bound = new UpperBound(grid, new boolean[] {false, true, true});
+		int highest = 0, sum = 0;
+		for(char[] line: cells) {
+			for(char ch: line) {
+				highest = Math.max(highest, Grid.digit(ch));
+				sum += Grid.digit(ch);
+			}
+		}
+		counts[1] = 1;
+		Check.that(bound.get(counts) == highest, "one letter earns the highest digit");
+		counts[1] = 4;
+		Check.that(bound.get(counts) == sum, "four letters earn every digit");
+		counts[1] = 0;
+		counts[2] = 3; // Only four windows of two cells, overlapping, and four digits for six letters
+		Check.that(bound.get(counts) == sum, "three words of two letters are bounded by the digits");
+		counts[2] = 1;
+		Check.that(bound.get(counts) == Grid.bestPlacement(cells, 2, null), "one word of two letters earns the best window");
+		Check.that(bound.get(new int[2]) == 0, "no word earns nothing");
+		bound.close();
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		following();
+		known();
+		Check.done("UpperBoundTest");
+	}
+}
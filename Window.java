@@ -15,53 +15,49 @@ public class Window extends JFrame {
 	Runnable end;
 
 	/**
-	  * Creates a new Window object with given Game, Grid and WordList.
+	  * Creates a new Window object playing the Game, Grid and WordList of the given session.
 	  *
-	  * @param	game	previously created in the Project class in main()
-	  * @param	list	previously created in the Project class in main()
-	  * @param	grid	previously created in the Project class in main()
+	  * @param	session	previously created in the Project class in main(), restarted by the menu
 	  */
-	public Window(Grid grid, WordsList list, Game game) {
+	public Window(Session session) {
+		Grid grid = session.getGrid();
+		WordsList list = session.getList();
+		Game game = session.getGame();
+
 		//Creates a DisplayWordsList object, DisplayGrid object and a DisplayGame object.
-		DisplayWordsList dlist = new DisplayWordsList(list);
+		DisplayWordsList dlist = new DisplayWordsList(list, grid);
 		DisplayGrid dgrid = new DisplayGrid(grid);
 		DisplayGame dgame = new DisplayGame(game, dlist, dgrid);
 
 		Runnable reload = () -> {
-			Project.load();
+			session.load();
 			dlist.reload();
 			this.repaint();
 			this.setVisible(true);
 		};
 
-		//Creates a JPanel object and set its layout.
+		//Creates a JPanel object and set its layout. The grid takes the space left when the window is resized.
 		JPanel panel = new JPanel();
-		panel.setLayout(new GridBagLayout());
+		panel.setLayout(new BorderLayout());
 
 		//Creates a MenuBar object.
-		MenuBar menuBar = new MenuBar(reload);
+		MenuBar menuBar = new MenuBar(reload, steps -> dgrid.zoom(steps, null));
 		this.setJMenuBar(menuBar);
 
-		//Set the layout for the JButtons of the WordList.
-		dlist.setLayout(new GridLayout(0,1,0,4));
-
-		// Use 2 columns if words list is too long (more than 3/4 of the height of the screen)
-		int screenH = java.awt.Toolkit.getDefaultToolkit().getScreenSize().height;
-		int dlistH = dlist.getPreferredSize().height;
-		if(screenH*3/4<dlistH) dlist.setLayout(new GridLayout(0,2,0,4));
-
 		//
 		dgrid.addMouseListener(dgame);
+		dgrid.addMouseWheelListener(dgame);
 
-		//Add dgrid and dlist in the main panel.
-		panel.add(dgrid);
-		panel.add(dlist);
+		//Add dgrid, in a scroll pane for the grids larger than the screen, and dlist in the main panel.
+		JScrollPane scroll = new JScrollPane(dgrid);
+		scroll.setBorder(null);
+		panel.add(scroll, BorderLayout.CENTER);
+		panel.add(dlist, BorderLayout.EAST);
 
 		//Settings of the window.
 		this.setTitle("Le jeu du scrabble-mêlée");
 		this.setLocationRelativeTo(null);
 		this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		this.setResizable(false);
 		this.setContentPane(panel);
 		//This changes the size of the window to contain all the components inside without letting useless blanks.
 		this.pack();
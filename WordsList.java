@@ -1,20 +1,78 @@
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
-import java.util.stream.*;
-import java.util.function.*;
 
 /**
  * This class handles reading a list of words from a given file and storing it in memory.
  *
+ * All the words are stored one after another in a single array of characters, the arena, instead of one String each.
+ * A table gives the offset of each word in the arena, and one bit per word marks the deleted ones, so indexes never change.
+ * Strings are only created when a caller asks for one, with getWord() or getWordsList().
+ *
  * @author Alexandre Renoux
  * @author Pierre-Emmanuel Novac
  */
 
 public class WordsList {
-	private String[] wordsList;
+	private char[] chars = new char[0]; // Arena: all words one after another
+	private int[] offsets = {0}; // Word i is chars[offsets[i]] to chars[offsets[i+1]-1]
+	private int loaded; // Number of words loaded, deleted ones included
+	private long[] deleted = new long[0]; // Deleted words, one bit each; not a BitSet, whose clear() looks for its last non-zero word each time
+	private long stateKey; // Hash of the remaining words, sum of their Zobrist keys
+
+	// Indexes kept up to date when words are deleted or restored, so that none of those operations goes through the whole list
+	private int[] lengthCount = new int[1]; // Number of remaining words of each length
+	private int minLength; // Shortest and longest remaining words, 0 if none
+	private int maxLength;
+	private int count; // Number of remaining words
+	private int[] table = new int[1]; // Hash table of the different words, open addressing: index of their first occurence in the file + 1, 0 if empty
+	private int[] same = new int[0]; // Index of the first occurence in the file of the same word, which stands for all its occurences
+	private int[] first = new int[0]; // For the first occurence in the file of a word, index of its first remaining occurence, -1 if none
+	private int[] next = new int[0]; // Index of the next occurence of the same word, -1 if none
+	private int[] prev = new int[0]; // Index of the previous occurence of the same word, -1 if none
 	private String filename;
-	private final int MAXMOTS = 30;
 	private final String DEFFILENAME = "wordsList.txt";
+	private static final long WINDOW = 1 << 28; // The file is mapped in memory 256 MB at a time
+	private long loadedBytes; // Size of the last file loaded
+	private long loadNanos; // Time taken by the last call to load()
+
+	/**
+	 * A word of the list read directly from the arena, without copying its characters.
+	 */
+	private static class Word implements CharSequence {
+		private final char[] chars;
+		private final int from;
+		private final int length;
+
+		private Word(char[] chars, int from, int length) {
+			this.chars = chars;
+			this.from = from;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int i) {
+			return chars[from + i];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new Word(chars, from + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, from, length);
+		}
+	}
 
 	/**
 	 * Creates a new WordList object.
@@ -22,6 +80,38 @@ public class WordsList {
 	public WordsList() {
 	}
 
+	/**
+	 * Creates a new WordsList object with the same words as another one, deleted ones included.
+	 *
+	 * The arena and the hash table never change once loaded, so they are shared; only what deleting a word modifies is copied.
+	 * @param	other	list to copy
+	 */
+	public WordsList(WordsList other) {
+		this.copyFrom(other);
+	}
+
+	/**
+	 * Makes this list hold the same words as another one, deleted ones included, like the copy constructor does.
+	 * @param	other	list to copy
+	 */
+	public void copyFrom(WordsList other) {
+		this.chars = other.chars;
+		this.offsets = other.offsets;
+		this.loaded = other.loaded;
+		this.table = other.table;
+		this.same = other.same;
+		this.deleted = other.deleted.clone();
+		this.stateKey = other.stateKey;
+		this.lengthCount = other.lengthCount.clone();
+		this.minLength = other.minLength;
+		this.maxLength = other.maxLength;
+		this.count = other.count;
+		this.first = other.first.clone();
+		this.next = other.next.clone();
+		this.prev = other.prev.clone();
+		this.filename = other.filename;
+	}
+
 	/** Set name of the file to load.
 	 * @param	filename	read words from this file
 	 */
@@ -31,33 +121,73 @@ public class WordsList {
 
 	/**
 	 * Reads a text file containing one word per line and stores it in the object.
+	 *
+	 * The file is mapped in memory by windows of up to WINDOW bytes and scanned byte by byte for line ends.
+	 * Blanks are trimmed on the bytes, and the remaining bytes of non-empty lines are decoded from UTF-8 straight into the arena.
+	 * The arena and the offsets grow geometrically, so there is no limit on the number of words.
 	 */
 	public void load() {
 		if(filename == null) {
 			System.err.println("No file name set. Using default: "+DEFFILENAME);
 			this.filename = DEFFILENAME;
 		}
-		BufferedReader words = null;
-		String[] tmp = new String[this.MAXMOTS]; // Temporary array of size = 30
+		long start = System.nanoTime();
+		FileChannel channel = null;
+		char[] arena = new char[1024]; // Temporary arrays, doubled when full
+		int[] offs = new int[64];
 		int i = 0;
 		try{
-			words = new BufferedReader(new FileReader(filename)); // Open the file
+			channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ); // Open the file
 		}
-		catch(FileNotFoundException e) {
+		catch(NoSuchFileException e) {
 			System.err.println("Cannot open " + filename + ": File not found.");
 			System.exit(2);
 		}
+		catch(IOException e) {
+			System.err.println("Cannot open " + filename + ": Input/Output error.");
+			System.exit(2);
+		}
 		try{
-			String res;
-			while((res = words.readLine()) != null){ // Read it line by line
-					res = res.trim(); // Remove useless leading and trailing blanks
-					if("".equals(res)) continue; // Don't import empty lines
-					tmp[i] = res; // Stores the line into our array
+			long size = channel.size();
+			long pos = 0; // Position of the beginning of the current line in the file
+			byte[] line = new byte[256]; // Bytes of the current word, reused for every line
+			while(pos < size) {
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+				int limit = buf.limit();
+				int begin = 0; // Beginning of the current line in the window
+				for(int j = 0; j <= limit; j++) {
+					boolean end; // Whether the current line ends at j
+					if(j < limit) end = buf.get(j) == '\n' || buf.get(j) == '\r'; // Same line breaks as BufferedReader.readLine()
+					else end = pos + j == size || begin == 0; // End of the file, which may not end with a line break, or a line longer than a whole window
+					if(!end) continue; // Otherwise a line cut by the end of the window is read again from the next window
+
+					int from = begin, to = j; // Remove useless leading and trailing blanks, all bytes up to a space like String.trim()
+					while(from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+					while(to > from && (buf.get(to-1) & 0xFF) <= ' ') to--;
+					begin = j+1;
+					if(from == to) continue; // Don't import empty lines
+
+					int len = to - from;
+					if(len > line.length) line = new byte[Math.max(2*line.length, len)];
+					buf.get(from, line, 0, len); // Copy the word in one go
+					if(i+2 > offs.length) offs = Arrays.copyOf(offs, 2*offs.length);
+					if(offs[i] + len > arena.length) arena = Arrays.copyOf(arena, Math.max(2*arena.length, offs[i] + len)); // A word never has more characters than bytes
+					boolean ascii = true;
+					for(int k = 0; k < len; k++) {
+						if(line[k] < 0) ascii = false; // Bytes of a multi-byte character are negative
+						arena[offs[i] + k] = (char) line[k];
+					}
+					if(ascii) offs[i+1] = offs[i] + len;
+					else { // Rare, so the decoding is left to String
+						String word = new String(line, 0, len, StandardCharsets.UTF_8);
+						word.getChars(0, word.length(), arena, offs[i]);
+						offs[i+1] = offs[i] + word.length();
+					}
 					i++;
+				}
+				pos += Math.min(begin, limit); // Continue from the first line not read yet
 			}
-		}
-		catch (ArrayIndexOutOfBoundsException e) {
-			System.err.println("List too long. Only "+MAXMOTS+" entries loaded."); // 30 wasn't enough
+			this.loadedBytes = size;
 		}
 		catch (IOException e) {
 			System.err.println("Cannot read file: Input/Output error.");
@@ -65,7 +195,7 @@ public class WordsList {
 		}
 		finally {
 			try {
-				words.close(); // Always close the file
+				channel.close(); // Always close the file
 			}
 			catch (IOException e) {
 				System.err.println("Cannot close file: Input/Output error.");
@@ -73,65 +203,291 @@ public class WordsList {
 			}
 		}
 
-		this.wordsList = new String[i]; // Creates a new array of the correct size
-		for ( int j = 0 ; j < this.wordsList.length ; j++){
-			this.wordsList[j] = tmp[j]; // And copy all words from our temporary array
+		this.chars = Arrays.copyOf(arena, offs[i]); // Creates new arrays of the correct size
+		this.offsets = Arrays.copyOf(offs, i+1);
+		this.loaded = i;
+		this.index();
+		this.loadNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Returns statistics about the last call to load().
+	 * @return	number of words and bytes read, and how many of them per second
+	 */
+	public String getLoadStatistics() {
+		double seconds = loadNanos / 1e9;
+		return String.format("%d words, %d bytes loaded in %.3f s (%.0f words/s, %.1f MB/s)",
+			loaded, loadedBytes, seconds, loaded / seconds, loadedBytes / seconds / 1e6);
+	}
+
+	/**
+	 * Builds the indexes kept alongside the arena: counts by length, positions of each word and hash.
+	 */
+	private void index() {
+		int longest = 0;
+		for(int i = 0; i < loaded; i++) longest = Math.max(longest, wordLength(i));
+		this.lengthCount = new int[longest+1];
+		this.deleted = new long[(loaded+63) >>> 6];
+		this.table = new int[Integer.highestOneBit(Math.max(loaded, 1)) << 2]; // At most half full
+		this.same = new int[loaded];
+		this.first = new int[loaded];
+		this.next = new int[loaded];
+		this.prev = new int[loaded];
+		this.stateKey = 0;
+		this.count = 0;
+		this.minLength = 0;
+		this.maxLength = 0;
+		long[] keys = new long[loaded];
+		for(int i = 0; i < loaded; i++) { // Forwards, so that the first occurence of each word is the one put in the table
+			keys[i] = Zobrist.key(chars, offsets[i], wordLength(i));
+			int slot = find(chars, offsets[i], wordLength(i), keys[i]);
+			if(table[slot] == 0) table[slot] = i+1;
+			same[i] = table[slot]-1;
+			first[i] = -1;
+		}
+		for(int i = loaded-1; i >= 0; i--) { // Backwards, so that each word is inserted before the next occurences
+			next[i] = -1;
+			prev[i] = -1;
+			add(i, keys[i]);
+		}
+	}
+
+	/**
+	 * Looks for a word in the hash table.
+	 * @param	word	characters of the word
+	 * @param	from	position of the word in the array
+	 * @param	length	length of the word
+	 * @param	key	Zobrist key of the word, also used as its hash
+	 * @return	slot of the table holding the word, or the empty slot where it would go
+	 */
+	private int find(char[] word, int from, int length, long key) {
+		int mask = table.length - 1;
+		int slot = (int) key & mask;
+		while(table[slot] != 0) {
+			int j = table[slot]-1;
+			if(wordLength(j) == length && Arrays.equals(chars, offsets[j], offsets[j] + length, word, from, from + length)) return slot;
+			slot = (slot + 1) & mask; // Linear probing
+		}
+		return slot;
+	}
+
+	/**
+	 * Looks for a word given as a String in the hash table, comparing it with the arena character by character, without copying it.
+	 * @param	word	the word
+	 * @param	key	Zobrist key of the word, also used as its hash
+	 * @return	slot of the table holding the word, or the empty slot where it would go
+	 */
+	private int find(String word, long key) {
+		int mask = table.length - 1;
+		int slot = (int) key & mask;
+		while(table[slot] != 0) {
+			int j = table[slot]-1;
+			if(wordLength(j) == word.length()) {
+				int i = 0;
+				while(i < word.length() && chars[offsets[j] + i] == word.charAt(i)) i++;
+				if(i == word.length()) return slot;
+			}
+			slot = (slot + 1) & mask; // Linear probing
 		}
+		return slot;
 	}
 
 	/**
-	 * Internal generic method used by maxLength() or minLength().
-	 * @param	ext	either Stream::min or Stream::max
-	 * @return	minimum or maximum String length found in the list
+	 * Adds the word at the given index, already stored in the arena, to the indexes.
+	 * @param	index	index of the word
+	 * @param	key	Zobrist key of the word
 	 */
-	private int extLength(BiFunction<Stream<String>, Comparator<String>, Optional<String>> ext) { // Parameter type designed to match Stream::min and Stream::max.
-		// Apply the min or max method on a stream created from the list of words, using the comparison between strings length.
-		// Make sure we get a String and not an Optional with orElse(""), and return its length.
-		return ext.apply(Arrays.stream(wordsList).filter(Objects::nonNull), Comparator.comparing(String::length)).orElse("").length();
+	private void add(int index, long key) {
+		int length = wordLength(index);
+		deleted[index >>> 6] &= ~(1L << index);
+		count++;
+		lengthCount[length]++;
+		if(count == 1) minLength = maxLength = length; // First word of an empty list
+		else {
+			minLength = Math.min(minLength, length);
+			maxLength = Math.max(maxLength, length);
+		}
+		stateKey += key;
+
+		// Insert the index in the list of occurences of this word, kept sorted so that the first occurence is the head
+		int head = first[same[index]];
+		if(head < 0 || head > index) {
+			next[index] = head;
+			prev[index] = -1;
+			if(head >= 0) prev[head] = index;
+			first[same[index]] = index;
+			return;
+		}
+		int i = head;
+		while(next[i] >= 0 && next[i] < index) i = next[i]; // Only walks through the other occurences of the same word
+		next[index] = next[i];
+		prev[index] = i;
+		if(next[i] >= 0) prev[next[i]] = index;
+		next[i] = index;
 	}
 
 	/**
-	 * Get max String length in WordsList, calling internal extLength() with method reference to Stream::max.
-	 * @return	maximum String length in the list
+	 * Removes the word at the given index from the indexes and marks it as deleted.
+	 * @param	index	index of a word still in the list
+	 */
+	private void remove(int index) {
+		int length = wordLength(index);
+		count--;
+		lengthCount[length]--;
+		if(count == 0) minLength = maxLength = 0; // Nothing left
+		else {
+			while(lengthCount[minLength] == 0) minLength++; // Each length is passed at most once until a word is restored, so this is O(1) amortized
+			while(lengthCount[maxLength] == 0) maxLength--;
+		}
+		stateKey -= Zobrist.key(chars, offsets[index], length);
+
+		// Unlink the index from the list of occurences of this word
+		if(prev[index] >= 0) next[prev[index]] = next[index];
+		else first[same[index]] = next[index];
+		if(next[index] >= 0) prev[next[index]] = prev[index];
+		deleted[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Get max String length in WordsList, kept up to date by the counts of words for each length.
+	 * @return	maximum String length in the list, 0 if it is empty
 	 */
 	public int maxLength() {
-		return extLength(Stream::max);
+		return this.maxLength;
 	}
 
 	/**
-	 * Get minimum String length in WordsList, calling internal extLength() with method reference to Stream::min.
-	 * @return	minimum String length in the list
+	 * Get minimum String length in WordsList, kept up to date by the counts of words for each length.
+	 * @return	minimum String length in the list, 0 if it is empty
 	 */
 	public int minLength() {
-		return extLength(Stream::min);
+		return this.minLength;
+	}
+
+	/**
+	 * Returns the number of words of the given length still in the list.
+	 * @param	length	length of the words
+	 * @return	number of words with this length
+	 */
+	public int countOfLength(int length) {
+		return length >= 0 && length < lengthCount.length ? lengthCount[length] : 0;
+	}
+
+	/**
+	 * Returns the number of words still in the list.
+	 * @return	number of words
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the number of words loaded, deleted ones included. Indexes of words go from 0 to this number minus 1.
+	 * @return	number of words loaded
+	 */
+	public int loadedCount() {
+		return this.loaded;
+	}
+
+	/**
+	 * Checks whether the word at the given index was deleted.
+	 * @param	index	index of the word
+	 * @return	true if the word was deleted or if the index is invalid
+	 */
+	public boolean isDeleted(int index) {
+		return index < 0 || index >= loaded || (deleted[index >>> 6] & 1L << index) != 0;
+	}
+
+	/**
+	 * Returns the index of the first word still in the list at or after the given index.
+	 * @param	from	index to start from
+	 * @return	index of the word, or -1 if there is none
+	 */
+	public int nextIndex(int from) {
+		int index = this.next(Math.max(from, 0));
+		return index < loaded ? index : -1;
+	}
+
+	/**
+	 * Returns the index of the first word not deleted at or after the given index, reading the deleted flags 64 at a time.
+	 * @param	from	index to start from, not negative
+	 * @return	index of the word, or at least loaded if there is none
+	 */
+	private int next(int from) {
+		int w = from >>> 6;
+		if(w >= deleted.length) return loaded;
+		long kept = ~deleted[w] & -1L << from; // Words not deleted in the first 64, from the index given
+		while(kept == 0) {
+			if(++w == deleted.length) return loaded;
+			kept = ~deleted[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(kept);
 	}
 
 	/**
-	 * Returns an array containing all words.
+	 * Returns the length of the word at the given index, deleted or not, read from the offsets without creating a String.
+	 * @param	index	index of the word
+	 * @return	length of the word
+	 */
+	public int wordLength(int index) {
+		return offsets[index+1] - offsets[index];
+	}
+
+	/**
+	 * Returns the word at the given index as a sequence of characters read directly from the arena, without copying them.
+	 * @param	index	index of the word
+	 * @return	the word, or null if it was deleted
+	 */
+	public CharSequence wordAt(int index) {
+		if(isDeleted(index)) return null;
+		return new Word(chars, offsets[index], wordLength(index));
+	}
+
+	/**
+	 * Returns the word at the given index as a new String.
+	 * @param	index	index of the word
+	 * @return	the word, or null if it was deleted
+	 */
+	public String getWord(int index) {
+		if(isDeleted(index)) return null;
+		return new String(chars, offsets[index], wordLength(index));
+	}
+
+	/**
+	 * Returns the word loaded at the given index as a new String, even if it was deleted.
+	 * @param	index	index of the word, from 0 to loadedCount() minus 1
+	 * @return	the word
+	 */
+	public String getLoadedWord(int index) {
+		return new String(chars, offsets[index], wordLength(index));
+	}
+
+	/**
+	 * Returns an array containing all words. Deleted words are replaced by null.
+	 *
+	 * The Strings are created from the arena each time this is called, so prefer getWord() or wordAt() for a few words.
 	 * @return	an array containing all words
 	 */
 	public String[] getWordsList(){
-		return this.wordsList;
+		String[] words = new String[loaded];
+		for(int i = this.next(0); i < loaded; i = this.next(i+1)) words[i] = getWord(i);
+		return words;
 	}
 
 	/**
-	 * Deletes a word from the list.
+	 * Deletes the first occurence of a word from the list.
+	 *
+	 * The word is marked as deleted like deleteWord(int) does, so that the indexes of the other words do not change.
+	 * The first occurence is found through the hash table of words, without going through the list.
 	 * @param	word	word to delete
+	 * @return	index of the deleted word, or -1 if it was not in the list
 	 */
-	public void deleteWord(String word) {
-		// We declare a new functional interface for use with filter() in order to remove only the first occurence of the given word
-		Predicate<String> remove = new Predicate<String>() {
-			boolean found = false;
-			@Override public boolean test(String str) {
-				// So if we didn't find the word previously and the current element of the stream matches, then set found to true and return false which will not include this element in the stream output.
-				// If it doesn't match or we found one already, return true so that this element is copied in the stream output.
-				if(!found && str.equals(word)) return !(found = true);
-				else return true;
-			}
-		};
-		// Filter a stream coming from our array of words, and insert it in a new array. This has the effect of returning an array sized exactly for the elements it contains.
-		// We replace the old reference by the new one.
-		wordsList = Arrays.stream(wordsList).filter(remove).toArray(String[]::new);
+	public int deleteWord(String word) {
+		int j = table[find(word, Zobrist.key(word))] - 1;
+		if(j < 0 || first[j] < 0) return -1;
+		int index = first[j];
+		remove(index);
+		return index;
 	}
 
 	/**
@@ -139,11 +495,31 @@ public class WordsList {
 	 * @param	index	index of word to delete from list
 	 */
 	public void deleteWord(int index) {
-		if(index < 0 || index >= wordsList.length) return;
-		wordsList[index] = null;
+		if(isDeleted(index)) return;
+		remove(index);
 		return;
 	}
 
+	/**
+	 * Puts a previously deleted word back in the list at its index. The word itself is still in the arena.
+	 * @param	index	index the word was deleted from
+	 */
+	public void restoreWord(int index) {
+		if(index < 0 || index >= loaded || !isDeleted(index)) return;
+		add(index, Zobrist.key(chars, offsets[index], wordLength(index)));
+	}
+
+	/**
+	 * Returns a 64-bit hash of the remaining words, updated each time a word is deleted or restored.
+	 *
+	 * The keys of the words are added rather than combined with a XOR, so that a word present twice does not cancel itself.
+	 * Two lists with the same remaining words have the same key, whatever their order.
+	 * @return	Zobrist hash of the remaining words
+	 */
+	public long getStateKey() {
+		return this.stateKey;
+	}
+
 	/**
 	 * Returns a string representation of the list.
 	 *
@@ -153,10 +529,10 @@ public class WordsList {
 	 */
 	@Override
 	public String toString(){
-		String s = "";
-		for(int i = 0; i< wordsList.length ; i++){
-			if( wordsList[i] != null) s +="(" + i + ")" + wordsList[i] + ", ";
+		StringBuilder s = new StringBuilder();
+		for(int i = this.next(0); i < loaded; i = this.next(i+1)) {
+			s.append('(').append(i).append(')').append(chars, offsets[i], wordLength(i)).append(", ");
 		}
-		return s;
+		return s.toString();
 	}
 }
@@ -0,0 +1,146 @@
+import java.util.*;
+
+/**
+ * This class checks that the arena, the offsets and the indexes of WordsList stay consistent with the words as they are deleted and restored.
+ *
+ * A file with blanks, empty lines, line breaks of both kinds, duplicates and accented words is loaded,
+ * then random words are deleted by index or by text and restored.
+ * After each change the list is compared with a plain array of the words and of which of them are deleted:
+ * the words read back, the counts by length, the shortest and longest lengths, the hash of the remaining words and the copies.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class WordsListTest {
+	/**
+	 * This class only has static methods.
+	 */
+	private WordsListTest() {
+	}
+
+	/**
+	 * Compares a list with the words it should have.
+	 * @param	list	list to check
+	 * @param	words	words loaded, in order
+	 * @param	deleted	true for each word deleted
+	 */
+	private static void compare(WordsList list, String[] words, boolean[] deleted) {
+		Check.that(list.loadedCount() == words.length, "loaded " + list.loadedCount() + " words instead of " + words.length);
+		int size = 0, min = 0, max = 0;
+		long key = 0;
+		int[] counts = new int[32];
+		int next = -1; // First word left at or after the index checked, found from the end
+		for(int i = words.length-1; i >= 0; i--) {
+			Check.that(list.getLoadedWord(i).equals(words[i]), "word " + i + " is " + list.getLoadedWord(i) + " instead of " + words[i]);
+			Check.that(list.wordLength(i) == words[i].length(), "length of word " + i);
+			Check.that(list.isDeleted(i) == deleted[i], "word " + i + " deleted " + list.isDeleted(i));
+			if(!deleted[i]) next = i;
+			Check.that(list.nextIndex(i) == next, "next index from " + i + " is " + list.nextIndex(i) + " instead of " + next);
+			if(deleted[i]) {
+				Check.that(list.getWord(i) == null && list.wordAt(i) == null, "deleted word " + i + " still read");
+				continue;
+			}
+			Check.that(list.getWord(i).equals(words[i]), "word " + i + " read as " + list.getWord(i));
+			Check.that(list.wordAt(i).toString().equals(words[i]), "word " + i + " read from the arena as " + list.wordAt(i));
+			int length = words[i].length();
+			size++;
+			counts[length]++;
+			min = min == 0 ? length : Math.min(min, length);
+			max = Math.max(max, length);
+			key += Zobrist.key(words[i]);
+		}
+		Check.that(list.size() == size, "size " + list.size() + " instead of " + size);
+		Check.that(list.minLength() == min && list.maxLength() == max, "lengths from " + list.minLength() + " to " + list.maxLength() + " instead of " + min + " to " + max);
+		for(int length = 0; length < counts.length; length++) Check.that(list.countOfLength(length) == counts[length], "count of length " + length);
+		Check.that(list.getStateKey() == key, "state key differs from the remaining words");
+		Check.that(list.isDeleted(-1) && list.isDeleted(words.length), "indexes out of the list are not deleted");
+
+		String[] all = list.getWordsList();
+		for(int i = 0; i < words.length; i++) Check.that(Objects.equals(all[i], deleted[i] ? null : words[i]), "word " + i + " of the array");
+
+		WordsList copy = new WordsList(list);
+		Check.that(copy.size() == size && copy.getStateKey() == key && copy.toString().equals(list.toString()), "copy differs");
+	}
+
+	/**
+	 * Checks which lines of a file become words.
+	 */
+	private static void loading() {
+		WordsList list = Check.words("  one\r\ntwo  \n\n \t \r\nété\rthree\n\nlast");
+		String[] words = {"one", "two", "été", "three", "last"};
+		compare(list, words, new boolean[words.length]);
+
+		list = Check.words("");
+		compare(list, new String[0], new boolean[0]);
+		Check.that(list.deleteWord("one") == -1, "delete a word from an empty list");
+	}
+
+	/**
+	 * Deletes and restores random words, by index and by text, comparing the list with the words after each change.
+	 */
+	private static void deleteAndRestore() {
+		Random rand = new Random(0);
+		String[] vocabulary = {"a", "be", "cat", "dog", "eel", "frog", "goose", "héron", "ibis", "jay", "kiwi", "lark"};
+		StringBuilder content = new StringBuilder();
+		String[] words = new String[300];
+		for(int i = 0; i < words.length; i++) {
+			words[i] = vocabulary[rand.nextInt(vocabulary.length)]; // Many duplicates
+			content.append(words[i]).append(rand.nextBoolean() ? "\n" : "\r\n");
+		}
+		WordsList list = Check.words(content.toString());
+		boolean[] deleted = new boolean[words.length];
+		compare(list, words, deleted);
+
+		for(int step = 0; step < 2000; step++) {
+			int i = rand.nextInt(words.length);
+			switch(rand.nextInt(3)) {
+				case 0:
+					list.deleteWord(i);
+					deleted[i] = true;
+					break;
+				case 1:
+					String word = rand.nextInt(10) == 0 ? "absent" : vocabulary[rand.nextInt(vocabulary.length)];
+					int first = -1; // First occurrence still in the list
+					for(int j = 0; j < words.length && first < 0; j++) if(!deleted[j] && words[j].equals(word)) first = j;
+					int index = list.deleteWord(word);
+					Check.that(index == first, "deleting " + word + " deleted " + index + " instead of " + first);
+					if(first >= 0) deleted[first] = true;
+					break;
+				default:
+					list.restoreWord(i);
+					deleted[i] = false;
+			}
+			if(step % 10 == 0) compare(list, words, deleted);
+		}
+		compare(list, words, deleted);
+
+		for(int i = 0; i < words.length; i++) list.restoreWord(i);
+		compare(list, words, new boolean[words.length]);
+	}
+
+	/**
+	 * Checks that a copy is independent of the list it was copied from, and that copyFrom() brings it back.
+	 */
+	private static void copies() {
+		WordsList list = Check.words("ant\nbee\nbee\nwasp\n");
+		WordsList copy = new WordsList(list);
+		long key = list.getStateKey();
+		Check.that(copy.deleteWord("bee") == 1, "delete from the copy");
+		Check.that(list.size() == 4 && !list.isDeleted(1) && list.getStateKey() == key, "deleting from the copy changed the list");
+		Check.that(copy.deleteWord("bee") == 2 && copy.deleteWord("bee") == -1, "delete the second occurrence from the copy");
+		copy.copyFrom(list);
+		compare(copy, new String[] {"ant", "bee", "bee", "wasp"}, new boolean[4]);
+	}
+
+	/**
+	 * Runs every check.
+	 * @param	args	unused
+	 */
+	public static void main(String[] args) {
+		loading();
+		deleteAndRestore();
+		copies();
+		Check.done("WordsListTest");
+	}
+}
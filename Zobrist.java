@@ -0,0 +1,64 @@
+/**
+ * This class provides the random-looking 64-bit keys used to hash the state of a game.
+ *
+ * In Zobrist hashing each possible element of a state gets a random key, and the hash of a state combines the keys of its elements.
+ * Adding or removing an element then only changes the hash by its key, so the hash is updated in constant time.
+ * A cell can contain any character, so instead of a table of random numbers the keys come from a mixing function, which gives the same result for the same element every time.
+ *
+ * @author Alexandre Renoux
+ * @author Pierre-Emmanuel Novac
+ */
+
+public class Zobrist {
+	/**
+	 * This class only has static methods.
+	 */
+	private Zobrist() {
+	}
+
+	/**
+	 * Returns the key of a number, scrambling its bits (finalizer of the SplitMix64 generator).
+	 * @param	x	number to scramble
+	 * @return	random-looking key, always the same for the same number
+	 */
+	public static long key(long x) {
+		x += 0x9E3779B97F4A7C15L;
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+
+	/**
+	 * Returns the key of a cell containing a character.
+	 * @param	cell	index of the cell, line*size + column
+	 * @param	ch	content of the cell
+	 * @return	key of the cell with this content
+	 */
+	public static long key(int cell, char ch) {
+		return key(((long) cell << 16) | ch);
+	}
+
+	/**
+	 * Returns the key of a word, computed from all its characters.
+	 * @param	word	word to hash
+	 * @return	key of the word
+	 */
+	public static long key(String word) {
+		long h = word.length();
+		for(int i = 0; i < word.length(); i++) h = key(h ^ word.charAt(i)); // Each character changes every bit of the key
+		return h;
+	}
+
+	/**
+	 * Returns the key of a word stored in an array of characters, the same as the key of the String holding the same characters.
+	 * @param	chars	array containing the word
+	 * @param	from	position of the first character of the word
+	 * @param	length	length of the word
+	 * @return	key of the word
+	 */
+	public static long key(char[] chars, int from, int length) {
+		long h = length;
+		for(int i = from; i < from + length; i++) h = key(h ^ chars[i]);
+		return h;
+	}
+}